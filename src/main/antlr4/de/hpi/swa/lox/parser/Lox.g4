@@ -10,9 +10,40 @@ grammar Lox;
 // DO NOT MODIFY - generated from Lox.g4
 }
 
+@lexer::members {
+/*
+ * String interpolation: "a ${x} b ${y} c" is lexed as STRING_START expression STRING_MID
+ * expression STRING_END. The stack holds the number of unclosed '{' of each interpolation we are
+ * in, so a '}' at depth 0 continues the string instead of closing a block.
+ */
+private final java.util.ArrayDeque<Integer> interpolationBraces = new java.util.ArrayDeque<>();
+
+private boolean atInterpolationEnd() {
+	return !interpolationBraces.isEmpty() && interpolationBraces.peek() == 0;
+}
+
+@Override
+public Token nextToken() {
+	Token token = super.nextToken();
+	if (token.getType() == STRING_START) {
+		interpolationBraces.push(0);
+	} else if (token.getType() == STRING_END) {
+		interpolationBraces.pop();
+	} else if (!interpolationBraces.isEmpty()) {
+		String text = token.getText();
+		if (text.equals("{")) {
+			interpolationBraces.push(interpolationBraces.pop() + 1);
+		} else if (text.equals("}")) {
+			interpolationBraces.push(interpolationBraces.pop() - 1);
+		}
+	}
+	return token;
+}
+}
+
 program: declaration* EOF;
 
-declaration: classDecl | varDecl | statement | funDecl;
+declaration: classDecl | structDecl | varDecl | statement | funDecl;
 
 statement:
 	exprStmt
@@ -20,6 +51,7 @@ statement:
 	| ifStmt
 	| whileStmt
 	| printStmt
+	| printfStmt
 	| block
 	| breakStmt
 	| continueStmt
@@ -55,9 +87,11 @@ classDecl: 'class' IDENTIFIER '{' method* '}';
 method: function | staticFunction;
 staticFunction: 'static' function;
 // classDecl: 'class' IDENTIFIER '{' function* '}';
+structDecl: 'struct' IDENTIFIER '{' (IDENTIFIER (',' IDENTIFIER)*)? '}';
 
 exprStmt: expression ';';
 printStmt: 'print' expression ';';
+printfStmt: 'printf' expression (',' expression)* ';';
 breakStmt: 'break' ';';
 continueStmt: 'continue' ';';
 
@@ -100,6 +134,7 @@ primary:
 	| '(' expression ')'
 	| array
 	| arrayExpr
+	| objectLiteral
 	| lambda;
 
 lambda:
@@ -110,10 +145,14 @@ lambda:
 
 arrayExpr: left = variableExpr '[' index = expression ']';
 array: '[' (expression (',' expression)*)? ']';
+objectLiteral:
+	'{' (IDENTIFIER ':' expression (',' IDENTIFIER ':' expression)*)? '}';
 
 variableExpr: IDENTIFIER;
 
-string: STRING;
+string:
+	STRING
+	| STRING_START expression (STRING_MID expression)* STRING_END;
 nil: 'nil';
 true: 'true';
 false: 'false';
@@ -122,7 +161,12 @@ number: NUMBER;
 IF: 'if';
 UNLESS: 'unless';
 NUMBER: DIGIT+ ( '.' DIGIT+)?;
-STRING: '"' (~["\\])* '"';
+STRING: '"' STRING_CHAR* '"';
+STRING_START: '"' STRING_CHAR* '${';
+STRING_MID: {atInterpolationEnd()}? '}' STRING_CHAR* '${';
+STRING_END: {atInterpolationEnd()}? '}' STRING_CHAR* '"';
+// No escape sequences: a backslash is an ordinary character, as regular expressions need it.
+fragment STRING_CHAR: ~["$] | '$' {_input.LA(1) != '{'}?;
 IDENTIFIER: ALPHA ( ALPHA | DIGIT)*;
 fragment ALPHA: [a-zA-Z_];
 fragment DIGIT: [0-9];
@@ -1,29 +1,121 @@
 package de.hpi.swa.lox;
 
+import de.hpi.swa.lox.nodes.LoxProgramRootNode;
 import de.hpi.swa.lox.parser.LoxBytecodeCompiler;
+import de.hpi.swa.lox.parser.LoxStringTable;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
 
 import com.oracle.truffle.api.source.Source;
 
 import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.Option;
 import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.TruffleLanguage;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.nodes.Node;
 
 import de.hpi.swa.lox.runtime.LoxContext;
+import de.hpi.swa.lox.runtime.object.LoxClass;
 
 @TruffleLanguage.Registration(id = LoxLanguage.ID)
+@Bind.DefaultExpression("get($node)")
 public class LoxLanguage extends TruffleLanguage<LoxContext> {
 
     public static final String ID = "lox";
 
+    private static final LanguageReference<LoxLanguage> REFERENCE = LanguageReference.create(LoxLanguage.class);
+
+    /**
+     * The class of all objects created by object literals. It is shared by all contexts, so literals
+     * with the same keys in the same order end up with the same shape.
+     */
+    private final LoxClass objectLiteralClass = new LoxClass("Object");
+
+    private final LoxStringTable stringTable = new LoxStringTable();
+
+    /** See {@link #isThreadAccessAllowed}. Threads are held weakly, so finished ones are dropped. */
+    private final Set<Thread> parallelThreads = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /** Whether the current thread is creating a worker, whose access is checked before it exists. */
+    private final ThreadLocal<Boolean> creatingWorker = ThreadLocal.withInitial(() -> false);
+
+    @Option(help = "Number of shape transitions after which an object switches to dictionary mode.", category = OptionCategory.EXPERT) //
+    public static final OptionKey<Integer> DictionaryModeThreshold = new OptionKey<>(32);
+
+    @Option(help = "Number of worker threads of the parallel built-ins; 0 uses one per processor.", category = OptionCategory.EXPERT) //
+    public static final OptionKey<Integer> Parallelism = new OptionKey<>(0);
+
+    public static LoxLanguage get(Node node) {
+        return REFERENCE.get(node);
+    }
+
+    public LoxClass getObjectLiteralClass() {
+        return objectLiteralClass;
+    }
+
+    public LoxStringTable getStringTable() {
+        return stringTable;
+    }
+
+    @Override
+    protected OptionDescriptors getOptionDescriptors() {
+        return new LoxLanguageOptionDescriptors();
+    }
+
     @Override
     protected LoxContext createContext(Env env) {
         return new LoxContext(this, env);
     }
 
+    @Override
+    protected void disposeContext(LoxContext context) {
+        context.dispose();
+    }
+
+    @Override
+    protected void finalizeContext(LoxContext context) {
+        context.finalizeWorkers();
+    }
+
+    /**
+     * The runtime objects are not synchronized, so a context may only be used by several threads at
+     * once for the parallel built-ins: by their Truffle worker threads and the threads that started
+     * them. Embedders cannot share a context between threads.
+     */
+    @Override
+    protected boolean isThreadAccessAllowed(Thread thread, boolean singleThreaded) {
+        return singleThreaded || creatingWorker.get() || parallelThreads.contains(thread);
+    }
+
+    /**
+     * Creates a Truffle thread for the parallel built-ins that runs {@code runnable} in the context
+     * of {@code env}, and lets it and the current thread, which it works for, use the context
+     * together.
+     */
+    public Thread createWorkerThread(Env env, Runnable runnable) {
+        creatingWorker.set(true);
+        Thread thread;
+        try {
+            thread = env.newTruffleThreadBuilder(runnable).build();
+        } finally {
+            creatingWorker.set(false);
+        }
+        parallelThreads.add(Thread.currentThread());
+        parallelThreads.add(thread);
+        return thread;
+    }
+
     @Override
     protected CallTarget parse(ParsingRequest request) {
         Source source = request.getSource();
         RootCallTarget rootTarget = LoxBytecodeCompiler.parseLox(this, source);
-        return rootTarget;
+        return new LoxProgramRootNode(this, rootTarget).getCallTarget();
     }
 }
@@ -1,6 +1,5 @@
 package de.hpi.swa.lox.bytecode;
 
-import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Objects;
@@ -16,6 +15,7 @@ import com.oracle.truffle.api.bytecode.Operation;
 import com.oracle.truffle.api.bytecode.Variadic;
 import com.oracle.truffle.api.dsl.Bind;
 import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.FrameDescriptor;
@@ -23,27 +23,45 @@ import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.library.CachedLibrary;
 
+import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.IndirectCallNode;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.object.DynamicObject;
 import com.oracle.truffle.api.object.DynamicObjectLibrary;
 import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
 
 import de.hpi.swa.lox.LoxLanguage;
 import de.hpi.swa.lox.error.LoxRuntimeError;
 import de.hpi.swa.lox.nodes.LoxRootNode;
+import de.hpi.swa.lox.runtime.DoubleFormatter;
 import de.hpi.swa.lox.runtime.LoxContext;
 import de.hpi.swa.lox.runtime.object.GlobalObject;
+import de.hpi.swa.lox.runtime.object.LoxAppendNode;
+import de.hpi.swa.lox.runtime.object.LoxAppendNodeGen;
 import de.hpi.swa.lox.runtime.object.LoxArray;
+import de.hpi.swa.lox.runtime.object.LoxArrayView;
+import de.hpi.swa.lox.runtime.object.LoxBuffer;
+import de.hpi.swa.lox.runtime.object.LoxByteArray;
 import de.hpi.swa.lox.runtime.object.LoxCallFunctionNode;
 import de.hpi.swa.lox.runtime.object.LoxClass;
+import de.hpi.swa.lox.runtime.object.LoxFloat64Array;
+import de.hpi.swa.lox.runtime.object.LoxFormatNode;
 import de.hpi.swa.lox.runtime.object.LoxFunction;
+import de.hpi.swa.lox.runtime.object.LoxInt64Array;
+import de.hpi.swa.lox.runtime.object.LoxMap;
+import static de.hpi.swa.lox.runtime.object.LoxFunction.ARGUMENT_OFFSET;
+import static de.hpi.swa.lox.runtime.object.LoxFunction.lookupInitializer;
 import static de.hpi.swa.lox.runtime.object.LoxFunction.lookupMethod;
 import de.hpi.swa.lox.runtime.object.LoxObject;
+import de.hpi.swa.lox.runtime.object.LoxStruct;
+import de.hpi.swa.lox.runtime.object.LoxStructType;
 import de.hpi.swa.lox.runtime.object.Nil;
 
 @GenerateBytecode(//
         languageClass = LoxLanguage.class, enableMaterializedLocalAccesses = true, //
-        boxingEliminationTypes = { long.class, boolean.class }, //
+        boxingEliminationTypes = { long.class, double.class, boolean.class }, //
         enableUncachedInterpreter = true, //
         enableSerialization = true)
 public abstract class LoxBytecodeRootNode extends LoxRootNode implements BytecodeRootNode {
@@ -54,16 +72,72 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
 
     @Operation
     public static final class LoxPrint {
+        private static final byte[] NIL = { 'n', 'i', 'l' };
+        private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+        private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+
+        @Specialization
+        static void doLong(long value, @Bind LoxContext context) {
+            var out = context.getOutput();
+            out.writeLong(value);
+            out.writeLineSeparator();
+        }
+
         @Specialization
+        static void doDouble(double value, @Bind LoxContext context) {
+            var out = context.getOutput();
+            out.writeDouble(value);
+            out.writeLineSeparator();
+        }
+
+        @Specialization
+        static void doBoolean(boolean value, @Bind LoxContext context) {
+            var out = context.getOutput();
+            out.write(value ? TRUE : FALSE);
+            out.writeLineSeparator();
+        }
+
+        @Specialization
+        static void doNil(Nil value, @Bind LoxContext context) {
+            var out = context.getOutput();
+            out.write(NIL);
+            out.writeLineSeparator();
+        }
+
+        @Specialization
+        static void doString(TruffleString value, @Bind LoxContext context,
+                @Cached TruffleString.GetInternalByteArrayNode getBytesNode) {
+            var out = context.getOutput();
+            var bytes = getBytesNode.execute(value, TruffleString.Encoding.UTF_8);
+            out.write(bytes.getArray(), bytes.getOffset(), bytes.getLength());
+            out.writeLineSeparator();
+        }
+
+        @Fallback
         static void doDefault(Object value, @Bind LoxContext context) {
             var out = context.getOutput();
-            try {
-                out.write(Objects.toString(value).getBytes());
-                out.write(System.lineSeparator().getBytes());
-                out.flush();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            out.writeString(toJavaString(value));
+            out.writeLineSeparator();
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static String toJavaString(Object value) {
+            return Objects.toString(value);
+        }
+    }
+
+    /**
+     * {@code printf format, args...;} writes a formatted string without a trailing newline. See
+     * {@link LoxFormatNode} for the format syntax.
+     */
+    @Operation
+    public static final class LoxPrintf {
+        @Specialization
+        static void doDefault(Object format, @Variadic Object[] arguments, @Bind LoxContext context,
+                @Cached LoxFormatNode formatNode,
+                @Cached TruffleString.GetInternalByteArrayNode getBytesNode) {
+            var bytes = getBytesNode.execute(formatNode.execute(format, arguments), TruffleString.Encoding.UTF_8);
+            context.getOutput().write(bytes.getArray(), bytes.getOffset(), bytes.getLength());
         }
     }
 
@@ -112,60 +186,68 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
             return left.add(right);
         }
 
+        /*
+         * String concatenation builds lazy ropes, so appending to a string in a loop does not copy
+         * the string built so far. Longs and doubles are converted without a boundary.
+         */
+
         @Specialization
-        @CompilerDirectives.TruffleBoundary
-        static TruffleString doString(TruffleString left, TruffleString right) {
-            String concatenated = left.toJavaStringUncached() + right.toJavaStringUncached();
-            return TruffleString.fromJavaStringUncached(concatenated, TruffleString.Encoding.UTF_8);
+        static TruffleString doString(TruffleString left, TruffleString right,
+                @Shared @Cached TruffleString.ConcatNode concatNode) {
+            return concatNode.execute(left, right, TruffleString.Encoding.UTF_8, true);
         }
 
-        // Handle number + string or string + number cases
         @Specialization
-        @CompilerDirectives.TruffleBoundary
-        static TruffleString doStringAndNumber(TruffleString left, long right) {
-            return TruffleString.fromJavaStringUncached(
-                    left.toJavaStringUncached() + right,
-                    TruffleString.Encoding.UTF_8);
+        static TruffleString doStringAndNumber(TruffleString left, long right,
+                @Shared @Cached TruffleString.FromLongNode fromLongNode,
+                @Shared @Cached TruffleString.ConcatNode concatNode) {
+            return concatNode.execute(left, fromLongNode.execute(right, TruffleString.Encoding.UTF_8, true),
+                    TruffleString.Encoding.UTF_8, true);
         }
 
         @Specialization
-        @CompilerDirectives.TruffleBoundary
-        static TruffleString doStringAndNumber(TruffleString left, double right) {
-            return TruffleString.fromJavaStringUncached(
-                    left.toJavaStringUncached() + right,
-                    TruffleString.Encoding.UTF_8);
+        static TruffleString doStringAndNumber(TruffleString left, double right,
+                @Shared @Cached TruffleString.FromByteArrayNode fromByteArrayNode,
+                @Shared @Cached TruffleString.ConcatNode concatNode) {
+            return concatNode.execute(left, DoubleFormatter.toTruffleString(right, fromByteArrayNode),
+                    TruffleString.Encoding.UTF_8, true);
         }
 
         @Specialization
-        @CompilerDirectives.TruffleBoundary
-        static TruffleString doStringAndBigInteger(TruffleString left, BigInteger right) {
-            return TruffleString.fromJavaStringUncached(
-                    left.toJavaStringUncached() + right.toString(),
-                    TruffleString.Encoding.UTF_8);
+        static TruffleString doStringAndBigInteger(TruffleString left, BigInteger right,
+                @Shared @Cached TruffleString.FromJavaStringNode fromJavaStringNode,
+                @Shared @Cached TruffleString.ConcatNode concatNode) {
+            return concatNode.execute(left, fromJavaStringNode.execute(toJavaString(right), TruffleString.Encoding.UTF_8),
+                    TruffleString.Encoding.UTF_8, true);
         }
 
         @Specialization
-        @CompilerDirectives.TruffleBoundary
-        static TruffleString doNumberAndString(long left, TruffleString right) {
-            return TruffleString.fromJavaStringUncached(
-                    left + right.toJavaStringUncached(),
-                    TruffleString.Encoding.UTF_8);
+        static TruffleString doNumberAndString(long left, TruffleString right,
+                @Shared @Cached TruffleString.FromLongNode fromLongNode,
+                @Shared @Cached TruffleString.ConcatNode concatNode) {
+            return concatNode.execute(fromLongNode.execute(left, TruffleString.Encoding.UTF_8, true), right,
+                    TruffleString.Encoding.UTF_8, true);
         }
 
         @Specialization
-        @CompilerDirectives.TruffleBoundary
-        static TruffleString doNumberAndString(double left, TruffleString right) {
-            return TruffleString.fromJavaStringUncached(
-                    left + right.toJavaStringUncached(),
-                    TruffleString.Encoding.UTF_8);
+        static TruffleString doNumberAndString(double left, TruffleString right,
+                @Shared @Cached TruffleString.FromByteArrayNode fromByteArrayNode,
+                @Shared @Cached TruffleString.ConcatNode concatNode) {
+            return concatNode.execute(DoubleFormatter.toTruffleString(left, fromByteArrayNode), right,
+                    TruffleString.Encoding.UTF_8, true);
         }
 
         @Specialization
+        static TruffleString doBigIntegerAndString(BigInteger left, TruffleString right,
+                @Shared @Cached TruffleString.FromJavaStringNode fromJavaStringNode,
+                @Shared @Cached TruffleString.ConcatNode concatNode) {
+            return concatNode.execute(fromJavaStringNode.execute(toJavaString(left), TruffleString.Encoding.UTF_8), right,
+                    TruffleString.Encoding.UTF_8, true);
+        }
+
         @CompilerDirectives.TruffleBoundary
-        static TruffleString doBigIntegerAndString(BigInteger left, TruffleString right) {
-            return TruffleString.fromJavaStringUncached(
-                    left.toString() + right.toJavaStringUncached(),
-                    TruffleString.Encoding.UTF_8);
+        static String toJavaString(Object number) {
+            return number.toString();
         }
 
         @Fallback
@@ -175,6 +257,47 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
         }
     }
 
+    /**
+     * Builds an interpolated string from its parts in one builder, which is sized for the string
+     * parts plus {@link #ESTIMATED_VALUE_LENGTH} bytes for every other value. Every part has its
+     * own {@link LoxAppendNode}, so each is converted with a specialization for its type.
+     */
+    @Operation
+    public static final class LoxConcat {
+        static final int ESTIMATED_VALUE_LENGTH = 16;
+
+        @Specialization
+        @ExplodeLoop
+        static TruffleString doDefault(@Variadic Object[] parts,
+                @Cached(value = "createAppendNodes(parts.length)", neverDefault = true, uncached = "getUncachedAppendNodes(parts.length)") LoxAppendNode[] appendNodes,
+                @Cached TruffleStringBuilder.ToStringNode toStringNode) {
+            int capacity = 0;
+            for (int i = 0; i < appendNodes.length; i++) {
+                capacity += parts[i] instanceof TruffleString string ? string.byteLength(TruffleString.Encoding.UTF_8)
+                        : ESTIMATED_VALUE_LENGTH;
+            }
+            var builder = TruffleStringBuilder.create(TruffleString.Encoding.UTF_8, capacity);
+            for (int i = 0; i < appendNodes.length; i++) {
+                appendNodes[i].execute(builder, parts[i]);
+            }
+            return toStringNode.execute(builder);
+        }
+
+        static LoxAppendNode[] createAppendNodes(int count) {
+            var nodes = new LoxAppendNode[count];
+            for (int i = 0; i < count; i++) {
+                nodes[i] = LoxAppendNodeGen.create();
+            }
+            return nodes;
+        }
+
+        static LoxAppendNode[] getUncachedAppendNodes(int count) {
+            var nodes = new LoxAppendNode[count];
+            Arrays.fill(nodes, LoxAppendNodeGen.getUncached());
+            return nodes;
+        }
+    }
+
     @Operation
     public static final class LoxSub {
         @Specialization
@@ -402,19 +525,125 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
 
     @Operation
     public static final class LoxEqual {
+        @Specialization
+        static boolean doLong(long left, long right) {
+            return left == right;
+        }
+
+        @Specialization
+        static boolean doMixed(long left, double right) {
+            return left == right;
+        }
+
+        @Specialization
+        static boolean doMixed(double left, long right) {
+            return left == right;
+        }
+
+        @Specialization
+        static boolean doDouble(double left, double right) {
+            return left == right;
+        }
+
+        @Specialization
+        static boolean doBoolean(boolean left, boolean right) {
+            return left == right;
+        }
+
+        @Specialization
+        static boolean doNil(Nil left, Nil right) {
+            return true;
+        }
+
+        @Specialization
+        static boolean doString(TruffleString left, TruffleString right,
+                @Cached TruffleString.EqualNode equalNode) {
+            return equalNode.execute(left, right, TruffleString.Encoding.UTF_8);
+        }
+
         @Specialization
         @CompilerDirectives.TruffleBoundary
-        static boolean doEqual(Object left, Object right) {
-            return Objects.equals(left, right);
+        static boolean doMixed(long left, BigInteger right) {
+            return BigInteger.valueOf(left).equals(right);
+        }
+
+        @Specialization
+        @CompilerDirectives.TruffleBoundary
+        static boolean doMixed(BigInteger left, long right) {
+            return left.equals(BigInteger.valueOf(right));
+        }
+
+        @Specialization
+        @CompilerDirectives.TruffleBoundary
+        static boolean doBigInteger(BigInteger left, BigInteger right) {
+            return left.equals(right);
+        }
+
+        @Fallback
+        static boolean doIdentity(Object left, Object right) {
+            return left == right;
         }
     }
 
     @Operation
     public static final class LoxNotEqual {
+        @Specialization
+        static boolean doLong(long left, long right) {
+            return left != right;
+        }
+
+        @Specialization
+        static boolean doMixed(long left, double right) {
+            return left != right;
+        }
+
+        @Specialization
+        static boolean doMixed(double left, long right) {
+            return left != right;
+        }
+
+        @Specialization
+        static boolean doDouble(double left, double right) {
+            return left != right;
+        }
+
+        @Specialization
+        static boolean doBoolean(boolean left, boolean right) {
+            return left != right;
+        }
+
+        @Specialization
+        static boolean doNil(Nil left, Nil right) {
+            return false;
+        }
+
+        @Specialization
+        static boolean doString(TruffleString left, TruffleString right,
+                @Cached TruffleString.EqualNode equalNode) {
+            return !equalNode.execute(left, right, TruffleString.Encoding.UTF_8);
+        }
+
         @Specialization
         @CompilerDirectives.TruffleBoundary
-        static boolean doNotEqual(Object left, Object right) {
-            return !Objects.equals(left, right);
+        static boolean doMixed(long left, BigInteger right) {
+            return !BigInteger.valueOf(left).equals(right);
+        }
+
+        @Specialization
+        @CompilerDirectives.TruffleBoundary
+        static boolean doMixed(BigInteger left, long right) {
+            return !left.equals(BigInteger.valueOf(right));
+        }
+
+        @Specialization
+        @CompilerDirectives.TruffleBoundary
+        static boolean doBigInteger(BigInteger left, BigInteger right) {
+            return !left.equals(right);
+        }
+
+        @Fallback
+        static boolean doIdentity(Object left, Object right) {
+            return left != right;
         }
     }
 
@@ -458,6 +687,15 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
             return left.compareTo(right) < 0;
         }
 
+        /*
+         * Strings are ordered by their UTF-8 bytes, which is the order of their code points.
+         */
+        @Specialization
+        static boolean doString(TruffleString left, TruffleString right,
+                @Cached TruffleString.CompareBytesNode compareNode) {
+            return compareNode.execute(left, right, TruffleString.Encoding.UTF_8) < 0;
+        }
+
         @Fallback
         @CompilerDirectives.TruffleBoundary
         static boolean typeError(Object left, Object right, @Bind Node node) {
@@ -506,6 +744,12 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
             return left.compareTo(right) > 0;
         }
 
+        @Specialization
+        static boolean doString(TruffleString left, TruffleString right,
+                @Cached TruffleString.CompareBytesNode compareNode) {
+            return compareNode.execute(left, right, TruffleString.Encoding.UTF_8) > 0;
+        }
+
         @Fallback
         @CompilerDirectives.TruffleBoundary
         static boolean typeError(Object left, Object right, @Bind Node node) {
@@ -553,6 +797,12 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
             return left.compareTo(right) <= 0;
         }
 
+        @Specialization
+        static boolean doString(TruffleString left, TruffleString right,
+                @Cached TruffleString.CompareBytesNode compareNode) {
+            return compareNode.execute(left, right, TruffleString.Encoding.UTF_8) <= 0;
+        }
+
         @Fallback
         @CompilerDirectives.TruffleBoundary
         static boolean typeError(Object left, Object right, @Bind Node node) {
@@ -600,6 +850,12 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
             return left.compareTo(right) >= 0;
         }
 
+        @Specialization
+        static boolean doString(TruffleString left, TruffleString right,
+                @Cached TruffleString.CompareBytesNode compareNode) {
+            return compareNode.execute(left, right, TruffleString.Encoding.UTF_8) >= 0;
+        }
+
         @Fallback
         @CompilerDirectives.TruffleBoundary
         static boolean typeError(Object left, Object right, @Bind Node node) {
@@ -716,14 +972,8 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
         @CompilerDirectives.TruffleBoundary
         private static void printWarning(String name, LoxContext context) {
             var out = context.getOutput();
-            try {
-                out.write(("Warning: Variable " + name +
-                        " was already declared").getBytes());
-                out.write(System.lineSeparator().getBytes());
-                out.flush();
-            } catch (IOException e) {
-                // pass
-            }
+            out.writeString("Warning: Variable " + name + " was already declared");
+            out.writeLineSeparator();
         }
     }
 
@@ -741,7 +991,7 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
         }
     }
 
-    static private boolean isTruthy(Object object) {
+    public static boolean isTruthy(Object object) {
         if (object == Nil.INSTANCE)
             return false;
         if (object instanceof Boolean)
@@ -774,27 +1024,200 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
     public static final class LoxArrayLiterals {
         @Specialization
         static Object doDefault(@Variadic Object[] elements) {
-            // Always construct a new array from the variadic input
-            Object[] array = Arrays.copyOf(elements, elements.length);
-            return new LoxArray(array); // Ensure LoxArray receives a proper array
+            // The variadic array is freshly allocated for every execution, so the array can own it
+            return new LoxArray(elements);
+        }
+    }
+
+    @Operation
+    @ConstantOperand(type = LoxArray.class)
+    public static final class LoxConstantArray {
+        @Specialization
+        static Object doDefault(LoxArray template) {
+            return template.copyOnWrite();
         }
     }
 
     @Operation
     public static final class LoxReadArray {
-        @Specialization(guards = "index >= 0")
+        @Specialization(guards = { "array.isLongStorage()", "array.inBounds(index)" })
+        static long readLong(LoxArray array, long index) {
+            return array.getLong((int) index);
+        }
+
+        @Specialization(guards = { "array.isDoubleStorage()", "array.inBounds(index)" })
+        static double readDouble(LoxArray array, long index) {
+            return array.getDouble((int) index);
+        }
+
+        @Specialization(guards = { "array.isBooleanStorage()", "array.inBounds(index)" })
+        static boolean readBoolean(LoxArray array, long index) {
+            return array.getBoolean((int) index);
+        }
+
+        @Specialization
         static Object readArray(LoxArray array, long index) {
+            return array.get(index);
+        }
+
+        @Specialization(guards = { "view.getArray().isLongStorage()", "view.inBounds(index)" })
+        static long readViewLong(LoxArrayView view, long index) {
+            return view.getArray().getLong(view.getOffset() + (int) index);
+        }
+
+        @Specialization(guards = { "view.getArray().isDoubleStorage()", "view.inBounds(index)" })
+        static double readViewDouble(LoxArrayView view, long index) {
+            return view.getArray().getDouble(view.getOffset() + (int) index);
+        }
+
+        @Specialization
+        static Object readView(LoxArrayView view, long index) {
+            return view.get(index);
+        }
+
+        @Specialization(guards = "array.inBounds(index)")
+        static long readInt64(LoxInt64Array array, long index) {
+            return array.get((int) index);
+        }
+
+        @Specialization(guards = "array.inBounds(index)")
+        static double readFloat64(LoxFloat64Array array, long index) {
             return array.get((int) index);
         }
+
+        @Specialization(guards = "array.inBounds(index)")
+        static long readByte(LoxByteArray array, long index) {
+            return array.get((int) index);
+        }
+
+        @Specialization(guards = "buffer.inBounds(offset, 1)")
+        static long readBuffer(LoxBuffer buffer, long offset) {
+            return buffer.getByte(offset);
+        }
+
+        @Specialization(guards = "map.acceptsLongKeys()")
+        static Object readMapLong(LoxMap map, long key) {
+            return map.getLong(key);
+        }
+
+        @Specialization(guards = "map.acceptsStringKeys()")
+        static Object readMapString(LoxMap map, TruffleString key,
+                @Cached TruffleString.HashCodeNode hashCodeNode,
+                @Cached TruffleString.EqualNode equalNode) {
+            return map.getString(key, hashCodeNode.execute(key, TruffleString.Encoding.UTF_8), equalNode);
+        }
+
+        @Specialization(replaces = { "readMapLong", "readMapString" })
+        static Object readMap(LoxMap map, Object key) {
+            return map.get(key);
+        }
+
+        @Fallback
+        @CompilerDirectives.TruffleBoundary
+        static Object typeError(Object array, Object index, @Bind Node node) {
+            throw new LoxRuntimeError("Cannot read index " + index + " of " + array, node);
+        }
     }
 
     @Operation
     public static final class LoxWriteArray {
-        @Specialization(guards = "index >= 0")
+        @Specialization(guards = { "array.isLongStorage()", "array.inBoundsForWrite(index)" })
+        static Void writeLong(LoxArray array, long index, long value) {
+            array.setLong((int) index, value);
+            return null;
+        }
+
+        @Specialization(guards = { "array.isDoubleStorage()", "array.inBoundsForWrite(index)" })
+        static Void writeDouble(LoxArray array, long index, double value) {
+            array.setDouble((int) index, value);
+            return null;
+        }
+
+        @Specialization(guards = { "array.isBooleanStorage()", "array.inBoundsForWrite(index)" })
+        static Void writeBoolean(LoxArray array, long index, boolean value) {
+            array.setBoolean((int) index, value);
+            return null;
+        }
+
+        @Specialization(guards = "array.isValidIndex(index)")
         static Void writeArray(LoxArray array, long index, Object value) {
+            array.set(index, value);
+            return null;
+        }
+
+        @Specialization(guards = { "view.getArray().isLongStorage()", "view.inBounds(index)" })
+        static Void writeViewLong(LoxArrayView view, long index, long value) {
+            view.getArray().setLong(view.getOffset() + (int) index, value);
+            return null;
+        }
+
+        @Specialization(guards = { "view.getArray().isDoubleStorage()", "view.inBounds(index)" })
+        static Void writeViewDouble(LoxArrayView view, long index, double value) {
+            view.getArray().setDouble(view.getOffset() + (int) index, value);
+            return null;
+        }
+
+        @Specialization(guards = "view.inBounds(index)")
+        static Void writeView(LoxArrayView view, long index, Object value) {
+            view.set(index, value);
+            return null;
+        }
+
+        @Specialization(guards = "array.inBounds(index)")
+        static Void writeInt64(LoxInt64Array array, long index, long value) {
+            array.set((int) index, value);
+            return null;
+        }
+
+        @Specialization(guards = "array.inBounds(index)")
+        static Void writeFloat64(LoxFloat64Array array, long index, double value) {
+            array.set((int) index, value);
+            return null;
+        }
+
+        @Specialization(guards = "array.inBounds(index)")
+        static Void writeFloat64(LoxFloat64Array array, long index, long value) {
+            array.set((int) index, value);
+            return null;
+        }
+
+        @Specialization(guards = "array.inBounds(index)")
+        static Void writeByte(LoxByteArray array, long index, long value) {
             array.set((int) index, value);
             return null;
         }
+
+        @Specialization(guards = "buffer.inBounds(offset, 1)")
+        static Void writeBuffer(LoxBuffer buffer, long offset, long value) {
+            buffer.setByte(offset, value);
+            return null;
+        }
+
+        @Specialization(guards = "map.acceptsLongKeys()")
+        static Void writeMapLong(LoxMap map, long key, Object value) {
+            map.putLong(key, value);
+            return null;
+        }
+
+        @Specialization(guards = "map.acceptsStringKeys()")
+        static Void writeMapString(LoxMap map, TruffleString key, Object value,
+                @Cached TruffleString.HashCodeNode hashCodeNode,
+                @Cached TruffleString.EqualNode equalNode) {
+            map.putString(key, hashCodeNode.execute(key, TruffleString.Encoding.UTF_8), equalNode, value);
+            return null;
+        }
+
+        @Specialization(replaces = { "writeMapLong", "writeMapString" })
+        static Void writeMap(LoxMap map, Object key, Object value) {
+            map.put(key, value);
+            return null;
+        }
+
+        @Fallback
+        @CompilerDirectives.TruffleBoundary
+        static Void typeError(Object array, Object index, Object value, @Bind Node node) {
+            throw new LoxRuntimeError("Cannot write index " + index + " of " + array, node);
+        }
     }
 
     @Operation
@@ -804,6 +1227,31 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
             return array.getSize();
         }
 
+        @Specialization
+        static long doView(LoxArrayView view) {
+            return view.getSize();
+        }
+
+        @Specialization
+        static long doInt64Array(LoxInt64Array array) {
+            return array.getSize();
+        }
+
+        @Specialization
+        static long doFloat64Array(LoxFloat64Array array) {
+            return array.getSize();
+        }
+
+        @Specialization
+        static long doByteArray(LoxByteArray array) {
+            return array.getSize();
+        }
+
+        @Specialization
+        static long doBuffer(LoxBuffer buffer) {
+            return buffer.getSize();
+        }
+
         @Fallback
         @CompilerDirectives.TruffleBoundary
         static int doError(Object array, @Bind Node node) {
@@ -814,10 +1262,14 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
     @Operation
     @ConstantOperand(type = int.class)
     public static final class LoxLoadArgument {
-        @Specialization(guards = "index <= arguments.length")
+        @Specialization(guards = "isPresent(index, arguments)")
         static Object doDefault(VirtualFrame frame, int index,
                 @Bind("frame.getArguments()") Object[] arguments) {
-            return arguments[index + 1];
+            return arguments[index + ARGUMENT_OFFSET];
+        }
+
+        static boolean isPresent(int index, Object[] arguments) {
+            return index + ARGUMENT_OFFSET < arguments.length;
         }
 
         @Fallback
@@ -832,7 +1284,8 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
         @Specialization
         static Object doDefault(VirtualFrame frame, int index,
                 @Bind("frame.getArguments()") Object[] arguments) {
-            return new LoxArray(Arrays.copyOfRange(arguments, index + 1, arguments.length));
+            int start = Math.min(index + ARGUMENT_OFFSET, arguments.length);
+            return new LoxArray(Arrays.copyOfRange(arguments, start, arguments.length));
         }
     }
 
@@ -850,24 +1303,49 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
 
     @Operation
     public static final class LoxCall {
-        @CompilerDirectives.TruffleBoundary
         @Specialization
         static Object callFunction(LoxFunction obj, @Variadic Object[] arguments,
                 @Cached LoxCallFunctionNode callNode) {
             return callNode.execute(obj, arguments);
         }
 
-        @Specialization(limit = "1")
+        @Specialization(guards = {"klass == cachedClass", "cachedInit != null"}, limit = "3")
+        static Object doCachedInit(LoxClass klass, @Variadic Object[] arguments,
+                @Cached("klass") LoxClass cachedClass,
+                @Cached("lookupInitializer(cachedClass, getUncachedDylib())") LoxFunction cachedInit,
+                @Cached("create(cachedInit.getCallTarget())") DirectCallNode initCall) {
+            var object = new LoxObject(cachedClass);
+            initCall.call(LoxFunction.createArguments(cachedInit, object, arguments));
+            return object;
+        }
+
+        @Specialization(guards = {"klass == cachedClass", "cachedInit == null"}, limit = "3")
+        static Object doCachedWithoutInit(LoxClass klass, @Variadic Object[] arguments,
+                @Cached("klass") LoxClass cachedClass,
+                @Cached("lookupInitializer(cachedClass, getUncachedDylib())") LoxFunction cachedInit) {
+            return new LoxObject(cachedClass);
+        }
+
+        @Specialization(replaces = { "doCachedInit", "doCachedWithoutInit" })
         static Object classInstationation(LoxClass klass, @Variadic Object[] arguments,
-                @Cached LoxCallFunctionNode callNode,
-                @CachedLibrary("klass") DynamicObjectLibrary klassDylib) {
+                @CachedLibrary(limit = "3") DynamicObjectLibrary klassDylib,
+                @Cached IndirectCallNode initCall) {
             var object = new LoxObject(klass);
-            LoxFunction function = lookupMethod(object, "init", klassDylib);
-            if (function != null) {
-                callNode.execute(function, arguments);
+            LoxFunction init = lookupInitializer(klass, klassDylib);
+            if (init != null) {
+                initCall.call(init.getCallTarget(), LoxFunction.createArguments(init, object, arguments));
             }
             return object;
         }
+
+        @Specialization
+        static Object doStruct(LoxStructType type, @Variadic Object[] arguments) {
+            return type.instantiate(arguments);
+        }
+
+        static DynamicObjectLibrary getUncachedDylib() {
+            return DynamicObjectLibrary.getUncached();
+        }
     }
 
     @Operation
@@ -894,13 +1372,74 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
         }
     }
 
+    /**
+     * Creates the object of an object literal {@code {k1: v1, k2: v2}}. Every key is stored with its
+     * own cached library, which only ever sees the shape left by the keys before it. The stores are
+     * therefore monomorphic transitions that compiled code folds into the allocation.
+     */
+    @Operation
+    @ConstantOperand(type = String[].class)
+    public static final class LoxObjectLiteral {
+        @Specialization
+        @ExplodeLoop
+        static LoxObject doDefault(String[] keys, @Variadic Object[] values,
+                @Bind LoxLanguage language,
+                @Cached(value = "createPutLibraries(keys.length)", neverDefault = true, uncached = "getUncachedPutLibraries(keys.length)") DynamicObjectLibrary[] putLibraries) {
+            var object = new LoxObject(language.getObjectLiteralClass());
+            for (int i = 0; i < keys.length; i++) {
+                putLibraries[i].put(object, keys[i], values[i]);
+            }
+            return object;
+        }
+
+        static DynamicObjectLibrary[] createPutLibraries(int count) {
+            var libraries = new DynamicObjectLibrary[count];
+            for (int i = 0; i < count; i++) {
+                libraries[i] = DynamicObjectLibrary.getFactory().createDispatched(1);
+            }
+            return libraries;
+        }
+
+        static DynamicObjectLibrary[] getUncachedPutLibraries(int count) {
+            var libraries = new DynamicObjectLibrary[count];
+            Arrays.fill(libraries, DynamicObjectLibrary.getUncached());
+            return libraries;
+        }
+    }
+
     @Operation
     @ConstantOperand(type = String.class)
     public static final class LoxWriteProperty {
-        @Specialization(limit = "1")
+        @Specialization(guards = "!obj.isDictionaryMode()", limit = "1")
         public static Object write(String name, LoxObject obj, Object value,
-                @CachedLibrary("obj") DynamicObjectLibrary dylib) {
+                @CachedLibrary("obj") DynamicObjectLibrary dylib,
+                @Bind LoxContext context) {
+            var shape = dylib.getShape(obj);
             dylib.put(obj, name, value);
+            if (dylib.getShape(obj) != shape) {
+                obj.recordShapeTransition(context.getDictionaryModeThreshold());
+            }
+            return value;
+        }
+
+        @Specialization(guards = "obj.isDictionaryMode()")
+        public static Object writeDictionary(String name, LoxObject obj, Object value) {
+            obj.putDictionaryProperty(name, value);
+            return value;
+        }
+
+        @Specialization(guards = { "obj.type == cachedType", "index >= 0" }, limit = "3")
+        public static Object writeStruct(String name, LoxStruct obj, Object value,
+                @Cached("obj.type") LoxStructType cachedType,
+                @Cached("cachedType.findField(name)") int index) {
+            obj.setField(index, value);
+            return value;
+        }
+
+        @Specialization(replaces = "writeStruct")
+        public static Object writeStructGeneric(String name, LoxStruct obj, Object value,
+                @Bind Node node) {
+            obj.setField(obj.type.getFieldIndex(name, node), value);
             return value;
         }
     }
@@ -908,7 +1447,7 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
     @Operation
     @ConstantOperand(type = String.class)
     public static final class LoxReadProperty {
-        @Specialization(limit = "1")
+        @Specialization(guards = "!obj.isDictionaryMode()", limit = "1")
         public static Object read(String name, LoxObject obj,
                 @CachedLibrary("obj") DynamicObjectLibrary dylib,
                 @CachedLibrary("obj.klass") DynamicObjectLibrary klassDylib) {
@@ -922,6 +1461,32 @@ public abstract class LoxBytecodeRootNode extends LoxRootNode implements Bytecod
             return result;
         }
 
+        @Specialization(guards = "obj.isDictionaryMode()", limit = "1")
+        public static Object readDictionary(String name, LoxObject obj,
+                @CachedLibrary("obj.klass") DynamicObjectLibrary klassDylib) {
+            var result = obj.getDictionaryProperty(name);
+            if (result == Nil.INSTANCE) {
+                var m = lookupMethod(obj, name, klassDylib);
+                if (m != null) {
+                    return m;
+                }
+            }
+            return result;
+        }
+
+        @Specialization(guards = { "obj.type == cachedType", "index >= 0" }, limit = "3")
+        public static Object readStruct(String name, LoxStruct obj,
+                @Cached("obj.type") LoxStructType cachedType,
+                @Cached("cachedType.findField(name)") int index) {
+            return obj.getField(index);
+        }
+
+        @Specialization(replaces = "readStruct")
+        public static Object readStructGeneric(String name, LoxStruct obj,
+                @Bind Node node) {
+            return obj.getField(obj.type.getFieldIndex(name, node));
+        }
+
         @Specialization(limit = "1")
         public static Object readClassProperty(String name, LoxClass klass,
                 @CachedLibrary("klass") DynamicObjectLibrary classDylib,
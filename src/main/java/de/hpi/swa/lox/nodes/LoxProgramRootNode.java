@@ -0,0 +1,38 @@
+package de.hpi.swa.lox.nodes;
+
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.NodeInfo;
+
+import de.hpi.swa.lox.LoxLanguage;
+import de.hpi.swa.lox.runtime.LoxContext;
+
+/**
+ * The root of a parsed source. It runs the program and flushes the buffered {@code print} output
+ * when the program ends, so that the output is visible to the host even if the program failed.
+ */
+@NodeInfo(language = "lox", description = "The root of a Lox program")
+public final class LoxProgramRootNode extends LoxRootNode {
+    @Child private DirectCallNode programNode;
+
+    public LoxProgramRootNode(LoxLanguage language, RootCallTarget program) {
+        super(language, null);
+        this.programNode = Truffle.getRuntime().createDirectCallNode(program);
+    }
+
+    @Override
+    public Object execute(VirtualFrame frame) {
+        try {
+            return programNode.call(frame.getArguments());
+        } finally {
+            LoxContext.get(this).getOutput().flush();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "program";
+    }
+}
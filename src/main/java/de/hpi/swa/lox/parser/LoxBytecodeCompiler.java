@@ -7,8 +7,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStreams;
@@ -58,19 +56,24 @@ import de.hpi.swa.lox.parser.LoxParser.Logic_orContext;
 import de.hpi.swa.lox.parser.LoxParser.MethodContext;
 import de.hpi.swa.lox.parser.LoxParser.NilContext;
 import de.hpi.swa.lox.parser.LoxParser.NumberContext;
+import de.hpi.swa.lox.parser.LoxParser.ObjectLiteralContext;
 import de.hpi.swa.lox.parser.LoxParser.PostfixConditionStmtContext;
 import de.hpi.swa.lox.parser.LoxParser.PrintStmtContext;
+import de.hpi.swa.lox.parser.LoxParser.PrintfStmtContext;
 import de.hpi.swa.lox.parser.LoxParser.ProgramContext;
 import de.hpi.swa.lox.parser.LoxParser.ReturnStmtContext;
 import de.hpi.swa.lox.parser.LoxParser.StatementContext;
 import de.hpi.swa.lox.parser.LoxParser.StaticFunctionContext;
 import de.hpi.swa.lox.parser.LoxParser.StringContext;
+import de.hpi.swa.lox.parser.LoxParser.StructDeclContext;
 import de.hpi.swa.lox.parser.LoxParser.TermContext;
 import de.hpi.swa.lox.parser.LoxParser.TrueContext;
 import de.hpi.swa.lox.parser.LoxParser.UnaryContext;
 import de.hpi.swa.lox.parser.LoxParser.VarDeclContext;
 import de.hpi.swa.lox.parser.LoxParser.VariableExprContext;
 import de.hpi.swa.lox.parser.LoxParser.WhileStmtContext;
+import de.hpi.swa.lox.runtime.object.LoxArray;
+import de.hpi.swa.lox.runtime.object.LoxStructType;
 import de.hpi.swa.lox.runtime.object.Nil;
 
 /**
@@ -188,6 +191,20 @@ public final class LoxBytecodeCompiler extends LoxBaseVisitor<Void> {
         this.curScope = new LexicalScope();
     }
 
+    /**
+     * Returns the interned string constant for a literal, shared across parses.
+     */
+    private TruffleString string(String value) {
+        return language.getStringTable().string(value);
+    }
+
+    /**
+     * Returns the interned name of a property, method or field, shared across parses.
+     */
+    private String name(TerminalNode identifier) {
+        return language.getStringTable().name(identifier.getText());
+    }
+
     @Override
     public Void visitProgram(ProgramContext ctx) {
         b.beginRoot();
@@ -226,91 +243,61 @@ public final class LoxBytecodeCompiler extends LoxBaseVisitor<Void> {
     }
 
     @Override
-    public Void visitString(StringContext ctx) {
-        List<Object> parts = new ArrayList<>();
-
-        // Remove surrounding quotes
-        String stringContent = ctx.getText().substring(1, ctx.getText().length() - 1);
-
-        // Regex to match ${...} expressions
-        Pattern pattern = Pattern.compile("(\\$\\{(.*?)\\})");
-        Matcher matcher = pattern.matcher(stringContent);
-
-        int lastIndex = 0;
-        while (matcher.find()) {
-            // Add the text before the expression as a string constant
-            if (matcher.start() > lastIndex) {
-                String literalPart = stringContent.substring(lastIndex, matcher.start());
-                literalPart = "\"" + literalPart + "\"";
-                LoxLexer lexer = new LoxLexer(CharStreams.fromString(literalPart));
-                LoxParser parser = new LoxParser(new CommonTokenStream(lexer));
-                LoxParser.ExpressionContext expr = parser.expression();
-                parts.add(expr);
-            }
-
-            // Convert the expression inside ${} to an AST node (ExpressionContext)
-            String expressionStr = matcher.group(2).trim();
-            LoxLexer lexer = new LoxLexer(CharStreams.fromString(expressionStr));
-            LoxParser parser = new LoxParser(new CommonTokenStream(lexer));
-            LoxParser.ExpressionContext expr = parser.expression();
-            parts.add(expr); // Store as AST node instead of raw text
-
-            lastIndex = matcher.end();
-        }
-
-        // Add remaining text after last match, wrapped in quotes
-        if (lastIndex < stringContent.length()) {
-            String literalPart = stringContent.substring(lastIndex);
-            parts.add("\"" + literalPart + "\"");
-        }
-
-        // Determine how many concatenations are needed
-        int concatCount = parts.size() - 1;
+    public Void visitPrintfStmt(PrintfStmtContext ctx) {
+        b.beginLoxPrintf();
+        var result = super.visitPrintfStmt(ctx);
+        b.endLoxPrintf();
+        return result;
+    }
 
-        // Begin additions BEFORE emitting constants
-        for (int i = 0; i < concatCount; i++) {
-            b.beginLoxAdd();
+    @Override
+    public Void visitString(StringContext ctx) {
+        if (ctx.STRING() != null) {
+            b.emitLoadConstant(string(stringContent(ctx.STRING())));
+            return null;
         }
-
-        // Emit all parts
-        for (int i = 0; i < parts.size(); i++) {
-            Object part = parts.get(i);
-            switch (part) {
-                case ExpressionContext expressionContext -> visitExpression(expressionContext);
-                case String string -> {
-                    // Convert to TruffleString before emitting
-                    var ts = TruffleString.fromJavaStringUncached(string.substring(1, ctx.getText().length() - 1),
-                            TruffleString.Encoding.UTF_8);
-                    b.emitLoadConstant(ts);
+        // An interpolated string: the literal parts are the string tokens between the expressions.
+        b.beginLoxConcat();
+        for (ParseTree child : ctx.children) {
+            if (child instanceof TerminalNode part) {
+                String content = stringContent(part);
+                if (!content.isEmpty()) {
+                    b.emitLoadConstant(string(content));
                 }
-                default -> {
-                }
-            }
-
-            if (i > 0) {
-                b.endLoxAdd();
+            } else {
+                visit(child);
             }
         }
+        b.endLoxConcat();
+        return null;
+    }
 
-        return super.visitString(ctx);
+    /**
+     * Returns the literal text of a string token, without the delimiters {@code "}, <code>${</code>
+     * and <code>}</code> that surround it.
+     */
+    private static String stringContent(TerminalNode token) {
+        String text = token.getText();
+        int end = text.endsWith("${") ? text.length() - 2 : text.length() - 1;
+        return text.substring(1, end);
     }
 
     @Override
     public Void visitNumber(NumberContext ctx) {
-        String literal = ctx.getText();
+        b.emitLoadConstant(parseNumber(ctx.getText()));
+        return super.visitNumber(ctx);
+    }
+
+    private static Object parseNumber(String literal) {
         if (literal.contains(".")) {
-            double number = Double.parseDouble(literal);
-            b.emitLoadConstant(number);
+            return Double.parseDouble(literal);
         } else {
             try {
-                long number = Long.parseLong(literal);
-                b.emitLoadConstant(number);
+                return Long.parseLong(literal);
             } catch (NumberFormatException e) {
-                BigInteger bigInteger = new BigInteger(literal);
-                b.emitLoadConstant(bigInteger);
+                return new BigInteger(literal);
             }
         }
-        return super.visitNumber(ctx);
     }
 
     @Override
@@ -565,7 +552,7 @@ public final class LoxBytecodeCompiler extends LoxBaseVisitor<Void> {
         final boolean isAssignment = ctx.IDENTIFIER() != null;
         if (isCall) {
             // Property Assignment
-            String name = ctx.IDENTIFIER().getText();
+            String name = name(ctx.IDENTIFIER());
             b.beginLoxWriteProperty(name);
             visitCall(ctx.call());
             visitAssignment(ctx.assignment());
@@ -698,6 +685,10 @@ public final class LoxBytecodeCompiler extends LoxBaseVisitor<Void> {
 
         if (elements.isEmpty()) {
             b.emitLoxNewArray();
+        } else if (elements.stream().allMatch(e -> constantValue(e) != null)) {
+            // literals of constants share one immutable storage that is copied on the first write
+            Object[] constants = elements.stream().map(this::constantValue).toArray();
+            b.emitLoxConstantArray(LoxArray.createTemplate(constants));
         } else {
             b.beginLoxArrayLiterals();
             for (ExpressionContext expr : elements) {
@@ -709,6 +700,46 @@ public final class LoxBytecodeCompiler extends LoxBaseVisitor<Void> {
         return null;
     }
 
+    /**
+     * Returns the value of an expression that is a literal number, string without interpolation,
+     * boolean or nil, or {@code null} if the expression is not such a constant.
+     */
+    private Object constantValue(ParseTree tree) {
+        while (!(tree instanceof UnaryContext unary && unary.getChildCount() == 2) && tree.getChildCount() == 1
+                && tree.getChild(0) instanceof ParserRuleContext child) {
+            tree = child;
+        }
+        return switch (tree) {
+            case NumberContext number -> parseNumber(number.getText());
+            case StringContext string when string.STRING() != null -> string(stringContent(string.STRING()));
+            case TrueContext t -> true;
+            case FalseContext f -> false;
+            case NilContext n -> Nil.INSTANCE;
+            case UnaryContext unary when unary.getChild(0).getText().equals("-") -> switch (constantValue(unary.unary())) {
+                case Long l when l != Long.MIN_VALUE -> -l;
+                case Double d -> -d;
+                case BigInteger i -> i.negate();
+                case null, default -> null;
+            };
+            default -> null;
+        };
+    }
+
+    @Override
+    public Void visitObjectLiteral(ObjectLiteralContext ctx) {
+        List<TerminalNode> keys = ctx.IDENTIFIER();
+        String[] names = new String[keys.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = name(keys.get(i));
+        }
+        b.beginLoxObjectLiteral(names);
+        for (ExpressionContext value : ctx.expression()) {
+            visit(value);
+        }
+        b.endLoxObjectLiteral();
+        return null;
+    }
+
     @Override
     public Void visitArrayExpr(ArrayExprContext ctx) {
         b.beginLoxReadArray();
@@ -893,9 +924,9 @@ public final class LoxBytecodeCompiler extends LoxBaseVisitor<Void> {
     @Override
     public Void visitFunction(LoxParser.FunctionContext function) {
 
-        String name = function.IDENTIFIER().getText();
+        String name = name(function.IDENTIFIER());
         if (function.getParent() instanceof StaticFunctionContext) {
-            name = "static_" + name;
+            name = language.getStringTable().name("static_" + name);
         }
         // Define the function in the current scope but do NOT execute its body yet.
         b.beginRoot();
@@ -977,7 +1008,7 @@ public final class LoxBytecodeCompiler extends LoxBaseVisitor<Void> {
             if (callArguments.IDENTIFIER() == null) {
                 b.beginLoxCall();
             } else {
-                String name = callArguments.IDENTIFIER().getText();
+                String name = name(callArguments.IDENTIFIER());
                 b.beginLoxReadProperty(name);
             }
         }
@@ -1020,6 +1051,22 @@ public final class LoxBytecodeCompiler extends LoxBaseVisitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitStructDecl(StructDeclContext ctx) {
+        List<TerminalNode> identifiers = ctx.IDENTIFIER();
+        String name = name(identifiers.get(0));
+        String[] fields = new String[identifiers.size() - 1];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = name(identifiers.get(i + 1));
+        }
+        curScope.define(name, ctx);
+        curScope.beginStore(name);
+        // The layout is fixed at parse time, so the type is a constant shared by all executions.
+        b.emitLoadConstant(new LoxStructType(name, fields));
+        curScope.endStore();
+        return null;
+    }
+
     @Override
     public Void visitLambda(LambdaContext ctx) {
         LexicalScope outerScope = curScope;
@@ -0,0 +1,87 @@
+package de.hpi.swa.lox.parser;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Interns the string literals and names of parsed sources. It is owned by the {@code LoxLanguage}
+ * and shared by all parses, so equal literals and names in different functions and sources are the
+ * same object. Equality checks and hash lookups on them then succeed on the identity check.
+ * <p>
+ * The interned values are held weakly: once no parsed code refers to a literal or name, for
+ * example after all contexts that evaluated its source are closed, its entry is removed.
+ */
+public final class LoxStringTable {
+    private final Interner<TruffleString> strings = new Interner<>(LoxStringTable::createString);
+    /** Names are copied, since the table holds its keys strongly and a key must not be a value. */
+    private final Interner<String> names = new Interner<>(String::new);
+
+    /**
+     * Returns the interned string constant with the contents {@code value}. Its hash code is
+     * computed up front, so map lookups with constant keys never hash.
+     */
+    public TruffleString string(String value) {
+        return strings.intern(value);
+    }
+
+    private static TruffleString createString(String value) {
+        TruffleString string = TruffleString.fromJavaStringUncached(value, TruffleString.Encoding.UTF_8);
+        string.hashCodeUncached(TruffleString.Encoding.UTF_8);
+        return string;
+    }
+
+    /**
+     * Returns the interned name of a variable, property, method or field.
+     */
+    public String name(String name) {
+        return names.intern(name);
+    }
+
+    /** A map from contents to weakly held values, whose cleared entries are removed on access. */
+    private static final class Interner<T> {
+        private final ConcurrentHashMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+        private final ReferenceQueue<T> cleared = new ReferenceQueue<>();
+        private final Function<String, T> factory;
+
+        Interner(Function<String, T> factory) {
+            this.factory = factory;
+        }
+
+        T intern(String key) {
+            removeCleared();
+            while (true) {
+                Entry<T> entry = entries.get(key);
+                T value = entry == null ? null : entry.get();
+                if (value != null) {
+                    return value;
+                }
+                value = factory.apply(key);
+                var newEntry = new Entry<>(key, value, cleared);
+                if (entry == null ? entries.putIfAbsent(key, newEntry) == null : entries.replace(key, entry, newEntry)) {
+                    return value;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void removeCleared() {
+            Entry<T> entry;
+            while ((entry = (Entry<T>) cleared.poll()) != null) {
+                entries.remove(entry.key, entry);
+            }
+        }
+    }
+
+    private static final class Entry<T> extends WeakReference<T> {
+        final String key;
+
+        Entry(String key, T value, ReferenceQueue<T> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
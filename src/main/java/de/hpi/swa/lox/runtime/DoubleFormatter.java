@@ -0,0 +1,347 @@
+package de.hpi.swa.lox.runtime;
+
+import java.math.BigInteger;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * Formats doubles into bytes exactly like {@link Double#toString(double)}: the shortest decimal
+ * that rounds back to the same double, written in plain notation for magnitudes in
+ * {@code [10^-3, 10^7)} and in computerized scientific notation otherwise.
+ * <p>
+ * The shortest decimal is found with Schubfach (Raffaello Giulietti, "The Schubfach way to render
+ * doubles", 2020), which needs only 64-bit arithmetic and a table of 126-bit approximations of the
+ * powers of ten. Unlike {@code Double.toString}, no intermediate {@link String} is created, so the
+ * formatter can be partially evaluated.
+ */
+public final class DoubleFormatter {
+    /** The maximum number of bytes written, as in {@code -2.2250738585072014E-308}. */
+    public static final int MAX_LENGTH = 24;
+
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final long T_MASK = C_MIN - 1;
+    /** Subnormal significands below this value are scaled by 10 so that the result has 2 digits. */
+    private static final long C_TINY = 3;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    private static final byte[] NAN = { 'N', 'a', 'N' };
+    private static final byte[] INFINITY = { 'I', 'n', 'f', 'i', 'n', 'i', 't', 'y' };
+    private static final byte[] MINUS_INFINITY = { '-', 'I', 'n', 'f', 'i', 'n', 'i', 't', 'y' };
+
+    /**
+     * {@code g(k) = floor(10^-k 2^(125 - flog2pow10(-k))) + 1}, split into its high and low 63 bits
+     * at indices {@code 2 (k - K_MIN)} and {@code 2 (k - K_MIN) + 1}.
+     */
+    @CompilerDirectives.CompilationFinal(dimensions = 1) private static final long[] G = createTable();
+
+    private DoubleFormatter() {
+    }
+
+    private static long[] createTable() {
+        long[] table = new long[2 * (K_MAX - K_MIN + 1)];
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int r = 125 - flog2pow10(-k);
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger pow10 = BigInteger.TEN.pow(-k);
+                g = r >= 0 ? pow10.shiftLeft(r) : pow10.shiftRight(-r);
+            } else {
+                g = BigInteger.ONE.shiftLeft(r).divide(BigInteger.TEN.pow(k));
+            }
+            g = g.add(BigInteger.ONE);
+            table[2 * (k - K_MIN)] = g.shiftRight(63).longValueExact();
+            table[2 * (k - K_MIN) + 1] = g.longValue() & MASK_63;
+        }
+        return table;
+    }
+
+    /** {@code floor(log10(2^e))} */
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    /** {@code floor(log10(3/4 2^e))} */
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L - 274_743_187_321L >> 41);
+    }
+
+    /** {@code floor(log2(10^e))} */
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * Returns {@code value} formatted like {@link Double#toString(double)}.
+     */
+    public static TruffleString toTruffleString(double value, TruffleString.FromByteArrayNode fromByteArrayNode) {
+        byte[] bytes = new byte[MAX_LENGTH];
+        int length = format(value, bytes, 0);
+        return fromByteArrayNode.execute(bytes, 0, length, TruffleString.Encoding.UTF_8, false);
+    }
+
+    /**
+     * Writes {@code value} into {@code buffer} at {@code offset}, which must have room for
+     * {@link #MAX_LENGTH} bytes. Returns the offset after the last byte written.
+     */
+    public static int format(double value, byte[] buffer, int offset) {
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & 0x7FF;
+        if (bq == 0x7FF && t != 0) {
+            return writeBytes(NAN, buffer, offset);
+        }
+        int position = offset;
+        if (bits < 0) {
+            buffer[position++] = '-';
+        }
+        if (bq == 0x7FF) {
+            return writeBytes(INFINITY, buffer, position);
+        }
+        if (bq != 0) {
+            // value = c 2^-mq
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    return toChars(f, 0, buffer, position);
+                }
+            }
+            return toChars(decimalDigits(-mq, c, 0), decimalExponent(-mq, c), buffer, position);
+        }
+        if (t != 0) {
+            long c = t < C_TINY ? 10 * t : t;
+            int dk = t < C_TINY ? -1 : 0;
+            return toChars(decimalDigits(Q_MIN, c, dk), decimalExponent(Q_MIN, c) + dk, buffer, position);
+        }
+        buffer[position++] = '0';
+        buffer[position++] = '.';
+        buffer[position++] = '0';
+        return position;
+    }
+
+    /**
+     * Returns {@code value} with {@code precision} digits after the decimal point, like
+     * {@code String.format("%.<precision>f", value)}: the shortest decimal is rounded half up, and
+     * large magnitudes are written in full rather than in scientific notation.
+     */
+    public static TruffleString toTruffleStringFixed(double value, int precision, TruffleString.FromByteArrayNode fromByteArrayNode) {
+        long bits = Double.doubleToRawLongBits(value);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & 0x7FF;
+        if (bq == 0x7FF) {
+            byte[] special = t != 0 ? NAN : bits < 0 ? MINUS_INFINITY : INFINITY;
+            return fromByteArrayNode.execute(special, 0, special.length, TruffleString.Encoding.UTF_8, true);
+        }
+        long digits;
+        int exponent;
+        if (bq != 0) {
+            int q = Q_MIN - 1 + bq;
+            long c = C_MIN | t;
+            digits = decimalDigits(q, c, 0);
+            exponent = decimalExponent(q, c);
+        } else if (t != 0) {
+            long c = t < C_TINY ? 10 * t : t;
+            int dk = t < C_TINY ? -1 : 0;
+            digits = decimalDigits(Q_MIN, c, dk);
+            exponent = decimalExponent(Q_MIN, c) + dk;
+        } else {
+            digits = 0;
+            exponent = 0;
+        }
+        byte[] bytes = toFixedChars(bits < 0, digits, exponent, precision);
+        return fromByteArrayNode.execute(bytes, 0, bytes.length, TruffleString.Encoding.UTF_8, false);
+    }
+
+    /**
+     * Writes {@code digits 10^exponent} rounded half up to {@code precision} fractional digits.
+     */
+    private static byte[] toFixedChars(boolean negative, long digits, int exponent, int precision) {
+        // The digits, with one spare byte in front for a carry out of the first digit.
+        int count = digitCount(digits);
+        byte[] d = new byte[count + 1];
+        writeDigits(digits, count, d, 1);
+        int start = 1;
+        // The number of digits before the decimal point.
+        int point = count + exponent;
+        int kept = point + precision;
+        if (kept < count) {
+            if (kept < 0) {
+                count = 0;
+            } else {
+                boolean up = d[start + kept] >= '5';
+                count = kept;
+                if (up) {
+                    int i = start + kept - 1;
+                    while (i >= start && d[i] == '9') {
+                        d[i--] = '0';
+                    }
+                    if (i < start) {
+                        start--;
+                        d[start] = '1';
+                        count++;
+                        point++;
+                    } else {
+                        d[i]++;
+                    }
+                }
+            }
+        }
+        int integerLength = Math.max(point, 1);
+        byte[] bytes = new byte[(negative ? 1 : 0) + integerLength + (precision > 0 ? precision + 1 : 0)];
+        int position = 0;
+        if (negative) {
+            bytes[position++] = '-';
+        }
+        for (int i = point - integerLength; i < point + precision; i++) {
+            if (i == point) {
+                bytes[position++] = '.';
+            }
+            bytes[position++] = 0 <= i && i < count ? d[start + i] : (byte) '0';
+        }
+        return bytes;
+    }
+
+    /**
+     * The exponent {@code k} of the decimal {@link #decimalDigits} finds for {@code c 2^q}.
+     */
+    private static int decimalExponent(int q, long c) {
+        return c != C_MIN || q == Q_MIN ? flog10pow2(q) : flog10threeQuartersPow2(q);
+    }
+
+    /**
+     * Finds the shortest decimal {@code d 10^(k + dk)} in the rounding interval of {@code c 2^q},
+     * preferring the one closest to it, and returns {@code d}. The exponent is given by
+     * {@link #decimalExponent}.
+     */
+    private static long decimalDigits(int q, long c, int dk) {
+        int out = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        // The interval is asymmetric at powers of two.
+        long cbl = c != C_MIN || q == Q_MIN ? cb - 2 : cb - 1;
+        int k = decimalExponent(q, c);
+        int h = q + flog2pow10(-k) + 2;
+        long g1 = G[2 * (k - K_MIN)];
+        long g0 = G[2 * (k - K_MIN) + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // Try one digit less: sp10 = 10 floor(s / 10).
+            long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return (upin ? sp10 : tp10) * (dk == 0 ? 1 : 10);
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return uin ? s : t;
+        }
+        long cmp = vb - (s + t << 1);
+        return cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t;
+    }
+
+    /**
+     * Computes {@code g cp 2^-127}, rounded to odd, where {@code g = g1 2^63 + g0}.
+     */
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /**
+     * Writes {@code f 10^e}, where {@code f > 0}.
+     */
+    private static int toChars(long f, int e, byte[] buffer, int position) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int length = digitCount(f);
+        // The decimal exponent of the first digit.
+        int exponent = length + e - 1;
+        if (0 <= exponent && exponent < 7) {
+            int end = writeDigits(f, length, buffer, position);
+            if (length <= exponent + 1) {
+                for (int i = length; i <= exponent; i++) {
+                    buffer[end++] = '0';
+                }
+                buffer[end++] = '.';
+                buffer[end++] = '0';
+                return end;
+            }
+            return insertPoint(buffer, position + exponent + 1, end);
+        } else if (-3 <= exponent && exponent < 0) {
+            buffer[position++] = '0';
+            buffer[position++] = '.';
+            for (int i = -1; i > exponent; i--) {
+                buffer[position++] = '0';
+            }
+            return writeDigits(f, length, buffer, position);
+        }
+        int end = writeDigits(f, length, buffer, position);
+        if (length == 1) {
+            buffer[end++] = '.';
+            buffer[end++] = '0';
+        } else {
+            end = insertPoint(buffer, position + 1, end);
+        }
+        buffer[end++] = 'E';
+        if (exponent < 0) {
+            buffer[end++] = '-';
+            exponent = -exponent;
+        }
+        return writeDigits(exponent, digitCount(exponent), buffer, end);
+    }
+
+    private static int digitCount(long value) {
+        int count = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            count++;
+        }
+        return count;
+    }
+
+    private static int writeDigits(long value, int count, byte[] buffer, int position) {
+        long v = value;
+        for (int i = position + count - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        return position + count;
+    }
+
+    /**
+     * Moves {@code buffer[at, end)} one byte to the right and puts a decimal point at {@code at}.
+     */
+    private static int insertPoint(byte[] buffer, int at, int end) {
+        for (int i = end; i > at; i--) {
+            buffer[i] = buffer[i - 1];
+        }
+        buffer[at] = '.';
+        return end + 1;
+    }
+
+    private static int writeBytes(byte[] bytes, byte[] buffer, int position) {
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        return position + bytes.length;
+    }
+}
@@ -1,7 +1,11 @@
 package de.hpi.swa.lox.runtime;
 
-import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.TruffleLanguage.ContextReference;
 import com.oracle.truffle.api.TruffleLanguage.Env;
@@ -9,23 +13,52 @@ import com.oracle.truffle.api.dsl.Bind;
 import com.oracle.truffle.api.nodes.Node;
 
 import de.hpi.swa.lox.LoxLanguage;
+import de.hpi.swa.lox.runtime.object.ArrayBuiltIns;
+import de.hpi.swa.lox.runtime.object.ArrayCombinators;
+import de.hpi.swa.lox.runtime.object.BufferBuiltIns;
 import de.hpi.swa.lox.runtime.object.ClockBuiltInNode;
 import de.hpi.swa.lox.runtime.object.GlobalObject;
 import de.hpi.swa.lox.runtime.object.LoxFunction;
+import de.hpi.swa.lox.runtime.object.MapBuiltIns;
+import de.hpi.swa.lox.runtime.object.ParallelCombinators;
+import de.hpi.swa.lox.runtime.object.RegexBuiltIns;
+import de.hpi.swa.lox.runtime.object.StringBuilderBuiltIns;
+import de.hpi.swa.lox.runtime.object.StringBuiltIns;
+import de.hpi.swa.lox.runtime.object.TypedArrayBuiltIns;
 
 @Bind.DefaultExpression("get($node)")
 public final class LoxContext {
+    private final LoxLanguage language;
     private final Env env;
+    private final LoxOutput output;
     public GlobalObject globalObject;
+    private final int dictionaryModeThreshold;
+    private final int parallelism;
+    private ExecutorService workerPool;
+    private final List<Thread> workerThreads = new ArrayList<>();
 
     public LoxContext(LoxLanguage language, TruffleLanguage.Env env) {
+        this.language = language;
         this.env = env;
+        this.output = new LoxOutput(env.out());
         this.globalObject = new GlobalObject();
+        this.dictionaryModeThreshold = env.getOptions().get(LoxLanguage.DictionaryModeThreshold);
+        int configuredParallelism = env.getOptions().get(LoxLanguage.Parallelism);
+        this.parallelism = configuredParallelism > 0 ? configuredParallelism : Runtime.getRuntime().availableProcessors();
 
         var clockNode = new ClockBuiltInNode();
         var clockCallTarget = clockNode.getCallTarget();
         var clockFunction = new LoxFunction("clock", clockCallTarget, null);
         this.globalObject.set("clock", clockFunction);
+        ArrayBuiltIns.install(this.globalObject);
+        ArrayCombinators.install(this.globalObject);
+        ParallelCombinators.install(this.globalObject);
+        MapBuiltIns.install(this.globalObject);
+        TypedArrayBuiltIns.install(this.globalObject);
+        BufferBuiltIns.install(this.globalObject);
+        StringBuilderBuiltIns.install(this.globalObject);
+        StringBuiltIns.install(this.globalObject);
+        RegexBuiltIns.install(this.globalObject);
     }
 
     private static final ContextReference<LoxContext> REFERENCE = ContextReference.create(LoxLanguage.class);
@@ -38,11 +71,78 @@ public final class LoxContext {
         return env;
     }
 
-    public OutputStream getOutput() {
-        return env.out();
+    public LoxOutput getOutput() {
+        return output;
     }
 
     public GlobalObject getGlobalObject() {
         return globalObject;
     }
+
+    public int getDictionaryModeThreshold() {
+        return dictionaryModeThreshold;
+    }
+
+    /** The number of workers of the parallel built-ins. */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * The pool running the parallel built-ins on Truffle threads, which enter this context when they
+     * start. It is created on first use and shut down when the context is finalized. Returns null if
+     * the context may not create threads, in which case the parallel built-ins run sequentially.
+     */
+    @TruffleBoundary
+    public synchronized ExecutorService getWorkerPool() {
+        if (workerPool == null && env.isCreateThreadAllowed()) {
+            workerPool = Executors.newFixedThreadPool(getParallelism(), this::createWorkerThread);
+        }
+        return workerPool;
+    }
+
+    private Thread createWorkerThread(Runnable runnable) {
+        // The pool creates workers on the thread that submits the tasks.
+        Thread thread = language.createWorkerThread(env, runnable);
+        synchronized (this) {
+            workerThreads.add(thread);
+        }
+        return thread;
+    }
+
+    @TruffleBoundary
+    public synchronized boolean isWorkerThread(Thread thread) {
+        return workerThreads.contains(thread);
+    }
+
+    /**
+     * Stops the workers and waits for them to leave the context, which must happen before it is
+     * closed.
+     */
+    @TruffleBoundary
+    public void finalizeWorkers() {
+        List<Thread> threads;
+        synchronized (this) {
+            if (workerPool == null) {
+                return;
+            }
+            workerPool.shutdownNow();
+            workerPool = null;
+            threads = new ArrayList<>(workerThreads);
+            workerThreads.clear();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @TruffleBoundary
+    public void dispose() {
+        output.flush();
+    }
 }
@@ -0,0 +1,112 @@
+package de.hpi.swa.lox.runtime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import de.hpi.swa.lox.runtime.object.LoxFunction;
+
+/**
+ * The buffered output of {@code print}. Values are written as bytes into a reusable buffer, which is
+ * flushed to the context's output stream when it is full, whenever control returns to the host (at
+ * the end of a top-level evaluation or of a host call of a {@link LoxFunction}) and when the context
+ * is disposed.
+ */
+public final class LoxOutput {
+    static final int BUFFER_SIZE = 8192;
+    /** The maximum number of characters of a formatted long, {@code -9223372036854775808}. */
+    private static final int MAX_LONG_LENGTH = 20;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+
+    public LoxOutput(OutputStream out) {
+        this.out = out;
+    }
+
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        if (length > buffer.length - position) {
+            flush();
+            if (length > buffer.length) {
+                writeUnbuffered(bytes, offset, length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    public void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    public void writeLineSeparator() {
+        write(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes the decimal digits of {@code value}. Negative numbers are handled as such, so that
+     * {@link Long#MIN_VALUE} needs no special case.
+     */
+    public synchronized void writeLong(long value) {
+        if (buffer.length - position < MAX_LONG_LENGTH) {
+            flush();
+        }
+        long negative = value;
+        if (value < 0) {
+            buffer[position++] = '-';
+        } else {
+            negative = -value;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' - negative % 10);
+            negative /= 10;
+        } while (negative != 0);
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte digit = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = digit;
+        }
+    }
+
+    /**
+     * Writes {@code value} like {@link Double#toString(double)} does.
+     */
+    public synchronized void writeDouble(double value) {
+        if (buffer.length - position < DoubleFormatter.MAX_LENGTH) {
+            flush();
+        }
+        position = DoubleFormatter.format(value, buffer, position);
+    }
+
+    @TruffleBoundary
+    public void writeString(String value) {
+        write(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TruffleBoundary
+    private void writeUnbuffered(byte[] bytes, int offset, int length) {
+        try {
+            out.write(bytes, offset, length);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @TruffleBoundary
+    public synchronized void flush() {
+        try {
+            out.write(buffer, 0, position);
+            out.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            position = 0;
+        }
+    }
+}
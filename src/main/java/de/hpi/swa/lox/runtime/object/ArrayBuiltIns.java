@@ -0,0 +1,445 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+import de.hpi.swa.lox.error.LoxRuntimeError;
+
+/**
+ * Built-in functions operating on {@link LoxArray}s. Element-wise operations specialize on the
+ * storage strategy of the array, structural ones move the raw storage with
+ * {@code System.arraycopy}.
+ */
+public final class ArrayBuiltIns {
+
+    private ArrayBuiltIns() {
+    }
+
+    public static void install(GlobalObject globals) {
+        define(globals, "push", ArrayBuiltInsFactory.PushBuiltInNodeGen.create());
+        define(globals, "pop", ArrayBuiltInsFactory.PopBuiltInNodeGen.create());
+        define(globals, "insert", ArrayBuiltInsFactory.InsertBuiltInNodeGen.create());
+        define(globals, "remove", ArrayBuiltInsFactory.RemoveBuiltInNodeGen.create());
+        define(globals, "slice", ArrayBuiltInsFactory.SliceBuiltInNodeGen.create());
+        define(globals, "concat", ArrayBuiltInsFactory.ConcatBuiltInNodeGen.create());
+        define(globals, "fill", ArrayBuiltInsFactory.FillBuiltInNodeGen.create());
+        define(globals, "copyWithin", ArrayBuiltInsFactory.CopyWithinBuiltInNodeGen.create());
+        define(globals, "indexOf", ArrayBuiltInsFactory.IndexOfBuiltInNodeGen.create());
+        define(globals, "sort", ArrayBuiltInsFactory.SortBuiltInNodeGen.create());
+        define(globals, "view", ArrayBuiltInsFactory.ViewBuiltInNodeGen.create());
+    }
+
+    static void define(GlobalObject globals, String name, BuiltInNode node) {
+        globals.set(name, node.createFunction(name));
+    }
+
+    /**
+     * Converts an optional index argument, clamping it to {@code [0, size]}.
+     */
+    static int clampIndex(Object index, int defaultValue, int size, Node node) {
+        if (index == Nil.INSTANCE) {
+            return defaultValue;
+        } else if (index instanceof Long l) {
+            return (int) Math.max(0, Math.min(l, size));
+        }
+        throw typeError("Expected an index, got ", index, node);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static LoxRuntimeError typeError(String message, Node node) {
+        return new LoxRuntimeError(message, node);
+    }
+
+    /**
+     * Creates a type error whose message ends with {@code value}, which is only converted to a
+     * string behind the boundary.
+     */
+    @CompilerDirectives.TruffleBoundary
+    static LoxRuntimeError typeError(String message, Object value, Node node) {
+        return new LoxRuntimeError(message + value, node);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static LoxRuntimeError argumentError(Node node, String name, Object... arguments) {
+        var sb = new StringBuilder("Unsupported arguments for ").append(name).append(":");
+        for (Object argument : arguments) {
+            sb.append(" ").append(argument);
+        }
+        return new LoxRuntimeError(sb.toString(), node);
+    }
+
+    /** {@code push(array, value)} appends a value and returns the new size. */
+    public abstract static class PushBuiltInNode extends BuiltInNode.Binary {
+        @Specialization(guards = "array.isLongStorage()")
+        static long doLong(LoxArray array, long value) {
+            array.setLong(array.getSize(), value);
+            return array.getSize();
+        }
+
+        @Specialization(guards = "array.isDoubleStorage()")
+        static long doDouble(LoxArray array, double value) {
+            array.setDouble(array.getSize(), value);
+            return array.getSize();
+        }
+
+        @Specialization(guards = "array.isBooleanStorage()")
+        static long doBoolean(LoxArray array, boolean value) {
+            array.setBoolean(array.getSize(), value);
+            return array.getSize();
+        }
+
+        @Specialization(replaces = { "doLong", "doDouble", "doBoolean" })
+        static long doGeneric(LoxArray array, Object value) {
+            array.set(array.getSize(), value);
+            return array.getSize();
+        }
+
+        @Fallback
+        static Object doError(Object array, Object value,
+                @Bind Node node) {
+            throw argumentError(node, "push", array, value);
+        }
+    }
+
+    /** {@code pop(array)} removes and returns the last element, or nil if the array is empty. */
+    public abstract static class PopBuiltInNode extends BuiltInNode.Unary {
+        @Specialization(guards = { "array.isLongStorage()", "array.getSize() > 0" })
+        static long doLong(LoxArray array) {
+            return array.popLong();
+        }
+
+        @Specialization(guards = { "array.isDoubleStorage()", "array.getSize() > 0" })
+        static double doDouble(LoxArray array) {
+            return array.popDouble();
+        }
+
+        @Specialization(replaces = { "doLong", "doDouble" })
+        static Object doGeneric(LoxArray array) {
+            return array.pop();
+        }
+
+        @Fallback
+        static Object doError(Object array,
+                @Bind Node node) {
+            throw argumentError(node, "pop", array);
+        }
+    }
+
+    /** {@code insert(array, index, value)} inserts a value before the given index. */
+    public abstract static class InsertBuiltInNode extends BuiltInNode.Ternary {
+        @Specialization(guards = "array.inBoundsForWrite(index)")
+        static Object doDefault(LoxArray array, long index, Object value) {
+            array.insert((int) index, value);
+            return array;
+        }
+
+        @Fallback
+        static Object doError(Object array, Object index, Object value,
+                @Bind Node node) {
+            throw argumentError(node, "insert", array, index, value);
+        }
+    }
+
+    /** {@code remove(array, index)} removes and returns the element at the given index. */
+    public abstract static class RemoveBuiltInNode extends BuiltInNode.Binary {
+        @Specialization(guards = "array.inBounds(index)")
+        static Object doDefault(LoxArray array, long index) {
+            return array.removeAt((int) index);
+        }
+
+        @Fallback
+        static Object doError(Object array, Object index,
+                @Bind Node node) {
+            throw argumentError(node, "remove", array, index);
+        }
+    }
+
+    /** {@code slice(array, start[, end])} copies a range of the array into a new array. */
+    public abstract static class SliceBuiltInNode extends BuiltInNode.Ternary {
+        @Specialization
+        static Object doDefault(LoxArray array, Object start, Object end,
+                @Bind Node node) {
+            int size = array.getSize();
+            return array.slice(clampIndex(start, 0, size, node), clampIndex(end, size, size, node));
+        }
+
+        @Fallback
+        static Object doError(Object array, Object start, Object end,
+                @Bind Node node) {
+            throw argumentError(node, "slice", array, start, end);
+        }
+    }
+
+    /**
+     * {@code view(array, start[, end])} returns a view of a range of an array or of another view,
+     * without copying the elements.
+     */
+    public abstract static class ViewBuiltInNode extends BuiltInNode.Ternary {
+        @Specialization
+        static Object doArray(LoxArray array, Object start, Object end,
+                @Bind Node node) {
+            int size = array.getSize();
+            int from = clampIndex(start, 0, size, node);
+            int to = clampIndex(end, size, size, node);
+            return new LoxArrayView(array, from, Math.max(0, to - from));
+        }
+
+        @Specialization
+        static Object doView(LoxArrayView view, Object start, Object end,
+                @Bind Node node) {
+            int size = view.getSize();
+            return view.subView(clampIndex(start, 0, size, node), clampIndex(end, size, size, node));
+        }
+
+        @Fallback
+        static Object doError(Object array, Object start, Object end,
+                @Bind Node node) {
+            throw argumentError(node, "view", array, start, end);
+        }
+    }
+
+    /** {@code concat(left, right)} returns a new array with the elements of both arrays. */
+    public abstract static class ConcatBuiltInNode extends BuiltInNode.Binary {
+        @Specialization
+        static Object doDefault(LoxArray left, LoxArray right) {
+            return LoxArray.concat(left, right);
+        }
+
+        @Fallback
+        static Object doError(Object left, Object right,
+                @Bind Node node) {
+            throw argumentError(node, "concat", left, right);
+        }
+    }
+
+    /** {@code fill(array, value[, start[, end]])} overwrites a range of the array with a value. */
+    public abstract static class FillBuiltInNode extends BuiltInNode.Quaternary {
+        @Specialization(guards = "array.isLongStorage()")
+        static Object doLong(LoxArray array, long value, Object start, Object end,
+                @Bind Node node) {
+            int size = array.getSize();
+            int from = clampIndex(start, 0, size, node);
+            int to = clampIndex(end, size, size, node);
+            if (from < to) {
+                array.fillLong(value, from, to);
+            }
+            return array;
+        }
+
+        @Specialization(guards = "array.isDoubleStorage()")
+        static Object doDouble(LoxArray array, double value, Object start, Object end,
+                @Bind Node node) {
+            int size = array.getSize();
+            int from = clampIndex(start, 0, size, node);
+            int to = clampIndex(end, size, size, node);
+            if (from < to) {
+                array.fillDouble(value, from, to);
+            }
+            return array;
+        }
+
+        @Specialization(replaces = { "doLong", "doDouble" })
+        static Object doGeneric(LoxArray array, Object value, Object start, Object end,
+                @Bind Node node) {
+            int size = array.getSize();
+            array.fill(value, clampIndex(start, 0, size, node), clampIndex(end, size, size, node));
+            return array;
+        }
+
+        @Fallback
+        static Object doError(Object array, Object value, Object start, Object end,
+                @Bind Node node) {
+            throw argumentError(node, "fill", array, value, start, end);
+        }
+    }
+
+    /**
+     * {@code copyWithin(array, target, start[, end])} copies a range of the array to another
+     * position in the same array.
+     */
+    public abstract static class CopyWithinBuiltInNode extends BuiltInNode.Quaternary {
+        @Specialization
+        static Object doDefault(LoxArray array, Object target, Object start, Object end,
+                @Bind Node node) {
+            int size = array.getSize();
+            array.copyWithin(clampIndex(target, 0, size, node), clampIndex(start, 0, size, node),
+                    clampIndex(end, size, size, node));
+            return array;
+        }
+
+        @Fallback
+        static Object doError(Object array, Object target, Object start, Object end,
+                @Bind Node node) {
+            throw argumentError(node, "copyWithin", array, target, start, end);
+        }
+    }
+
+    /**
+     * {@code indexOf(array, value)} returns the first index of an element that is {@code ==} to the
+     * value, or -1.
+     * {@code indexOf(string, substring)} returns the code point index of the first occurrence of a
+     * substring, or -1.
+     */
+    public abstract static class IndexOfBuiltInNode extends BuiltInNode.Binary {
+        @Specialization
+        static long doString(TruffleString string, TruffleString substring,
+                @Cached TruffleString.CodePointLengthNode lengthNode,
+                @Cached TruffleString.IndexOfStringNode indexOfNode) {
+            int length = lengthNode.execute(string, StringBuiltIns.UTF_8);
+            return indexOfNode.execute(string, substring, 0, length, StringBuiltIns.UTF_8);
+        }
+
+        @Specialization(guards = "array.isLongStorage()")
+        static long doLong(LoxArray array, long value) {
+            return array.indexOfLong(value);
+        }
+
+        @Specialization(guards = "array.isDoubleStorage()")
+        static long doDouble(LoxArray array, double value) {
+            return array.indexOfDouble(value);
+        }
+
+        @Specialization(replaces = { "doLong", "doDouble" })
+        static long doGeneric(LoxArray array, Object value) {
+            return array.indexOf(value);
+        }
+
+        @Fallback
+        static Object doError(Object array, Object value,
+                @Bind Node node) {
+            throw argumentError(node, "indexOf", array, value);
+        }
+    }
+
+    /**
+     * {@code sort(array[, cmp])} sorts the array in place and returns it. Without a comparator,
+     * numbers and strings are sorted in ascending order, arrays of only longs or only doubles with
+     * {@link Arrays#sort} on their primitive storage. A comparator is called with two elements and
+     * returns a negative number, zero or a positive number; sorting with it is stable.
+     */
+    public abstract static class SortBuiltInNode extends BuiltInNode.Binary {
+        @Specialization(guards = "array.isLongStorage()")
+        static Object doLong(LoxArray array, Nil cmp) {
+            array.sortLongs();
+            return array;
+        }
+
+        @Specialization(guards = "array.isDoubleStorage()")
+        static Object doDouble(LoxArray array, Nil cmp) {
+            array.sortDoubles();
+            return array;
+        }
+
+        @Specialization
+        static Object doNatural(LoxArray array, Nil cmp,
+                @Bind Node node) {
+            sortNatural(array, node);
+            return array;
+        }
+
+        @Specialization
+        static Object doComparator(LoxArray array, LoxFunction cmp,
+                @Cached LoxCallFunctionNode callNode,
+                @Bind Node node) {
+            Object[] items = array.toObjectArray();
+            mergeSort(items, cmp, callNode, node);
+            array.setElements(items);
+            return array;
+        }
+
+        @Fallback
+        static Object doError(Object array, Object cmp,
+                @Bind Node node) {
+            throw argumentError(node, "sort", array, cmp);
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static void sortNatural(LoxArray array, Node node) {
+            // Behind the boundary, the comparator must not use the nodes adopted by this site.
+            var compareNode = TruffleString.CompareBytesNode.getUncached();
+            Object[] items = array.toObjectArray();
+            Arrays.sort(items, (a, b) -> compareNatural(a, b, compareNode, node));
+            array.setElements(items);
+        }
+
+        private static int compareNatural(Object a, Object b, TruffleString.CompareBytesNode compareNode, Node node) {
+            if (a instanceof TruffleString left && b instanceof TruffleString right) {
+                // Comparing UTF-8 bytes orders strings by code point.
+                return compareNode.execute(left, right, TruffleString.Encoding.UTF_8);
+            } else if (isNumber(a) && isNumber(b)) {
+                return compareNumbers(a, b);
+            }
+            throw typeError("Cannot compare " + a + " and " + b, node);
+        }
+
+        private static boolean isNumber(Object value) {
+            return value instanceof Long || value instanceof Double || value instanceof BigInteger;
+        }
+
+        private static int compareNumbers(Object a, Object b) {
+            if (a instanceof Long left && b instanceof Long right) {
+                return Long.compare(left, right);
+            } else if (a instanceof Double || b instanceof Double) {
+                return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+            }
+            return toBigInteger(a).compareTo(toBigInteger(b));
+        }
+
+        private static BigInteger toBigInteger(Object value) {
+            return value instanceof BigInteger big ? big : BigInteger.valueOf((Long) value);
+        }
+
+        /**
+         * A stable bottom-up merge sort. It is not behind a boundary, so the comparator calls go
+         * through the cached call node and can be inlined.
+         */
+        private static void mergeSort(Object[] items, LoxFunction cmp, LoxCallFunctionNode callNode, Node node) {
+            int n = items.length;
+            Object[] source = items;
+            Object[] target = new Object[n];
+            for (int width = 1; width < n; width *= 2) {
+                for (int low = 0; low < n; low += 2 * width) {
+                    int middle = Math.min(low + width, n);
+                    int high = Math.min(low + 2 * width, n);
+                    int i = low;
+                    int j = middle;
+                    int k = low;
+                    while (i < middle && j < high) {
+                        // Only take from the right run if it is strictly smaller, to keep the sort stable.
+                        if (compare(source[j], source[i], cmp, callNode, node) < 0) {
+                            target[k++] = source[j++];
+                        } else {
+                            target[k++] = source[i++];
+                        }
+                    }
+                    System.arraycopy(source, i, target, k, middle - i);
+                    System.arraycopy(source, j, target, k + middle - i, high - j);
+                }
+                Object[] swap = source;
+                source = target;
+                target = swap;
+            }
+            if (source != items) {
+                System.arraycopy(source, 0, items, 0, n);
+            }
+        }
+
+        private static int compare(Object a, Object b, LoxFunction cmp, LoxCallFunctionNode callNode, Node node) {
+            Object result = callNode.execute(cmp, new Object[]{a, b});
+            if (result instanceof Long l) {
+                return Long.signum(l);
+            } else if (result instanceof Double d) {
+                return d < 0 ? -1 : (d > 0 ? 1 : 0);
+            }
+            throw typeError("Comparator must return a number, got ", result, node);
+        }
+    }
+}
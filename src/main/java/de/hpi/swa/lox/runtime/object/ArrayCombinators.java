@@ -0,0 +1,269 @@
+package de.hpi.swa.lox.runtime.object;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.Truffle;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.LoopNode;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RepeatingNode;
+
+import de.hpi.swa.lox.bytecode.LoxBytecodeRootNode;
+import de.hpi.swa.lox.error.LoxRuntimeError;
+
+/**
+ * Higher-order built-ins that call a Lox function for the elements of an array:
+ * {@code map(array, fn)}, {@code filter(array, fn)}, {@code reduce(array, fn, initial)},
+ * {@code forEach(array, fn)}, {@code some(array, fn)}, {@code every(array, fn)} and
+ * {@code find(array, fn)}. Callbacks receive the element and its index; {@code reduce} passes the
+ * accumulator and the element.
+ * <p>
+ * The iteration runs in a {@link LoopNode}, so long-running combinators are compiled with OSR.
+ * Callbacks are called through a {@link LoxCallFunctionNode}, whose direct call cache is per call
+ * site because built-ins are split.
+ */
+public final class ArrayCombinators {
+    static final int ARRAY_SLOT = 0;
+    static final int CALLBACK_SLOT = 1;
+    static final int INDEX_SLOT = 2;
+    static final int RESULT_SLOT = 3;
+
+    private ArrayCombinators() {
+    }
+
+    public static void install(GlobalObject globals) {
+        ArrayBuiltIns.define(globals, "map", new MapBuiltInNode());
+        ArrayBuiltIns.define(globals, "filter", new FilterBuiltInNode());
+        ArrayBuiltIns.define(globals, "reduce", new ReduceBuiltInNode());
+        ArrayBuiltIns.define(globals, "forEach", new ForEachBuiltInNode());
+        ArrayBuiltIns.define(globals, "some", new SomeBuiltInNode());
+        ArrayBuiltIns.define(globals, "every", new EveryBuiltInNode());
+        ArrayBuiltIns.define(globals, "find", new FindBuiltInNode());
+    }
+
+    abstract static class CombinatorBuiltInNode extends BuiltInNode {
+        private final String name;
+        @Child private LoopNode loop;
+
+        CombinatorBuiltInNode(String name, CombinatorBody body) {
+            super(createFrameDescriptor());
+            this.name = name;
+            this.loop = Truffle.getRuntime().createLoopNode(body);
+        }
+
+        private static FrameDescriptor createFrameDescriptor() {
+            var builder = FrameDescriptor.newBuilder();
+            builder.addSlot(FrameSlotKind.Object, "array", null);
+            builder.addSlot(FrameSlotKind.Object, "callback", null);
+            builder.addSlot(FrameSlotKind.Long, "index", null);
+            builder.addSlot(FrameSlotKind.Object, "result", null);
+            return builder.build();
+        }
+
+        @Override
+        public final Object execute(VirtualFrame frame) {
+            Object array = getArgument(frame, 0);
+            Object callback = getArgument(frame, 1);
+            if (!(array instanceof LoxArray) || !(callback instanceof LoxFunction)) {
+                throw argumentError(array, callback);
+            }
+            frame.setObject(ARRAY_SLOT, array);
+            frame.setObject(CALLBACK_SLOT, callback);
+            frame.setLong(INDEX_SLOT, 0);
+            frame.setObject(RESULT_SLOT, initialResult(frame));
+            loop.execute(frame);
+            return frame.getObject(RESULT_SLOT);
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private LoxRuntimeError argumentError(Object array, Object callback) {
+            return new LoxRuntimeError("Expected an array and a function for " + name + ", got " + array + " and "
+                    + callback, this);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The value of the result slot before the first element is processed.
+         */
+        abstract Object initialResult(VirtualFrame frame);
+    }
+
+    /**
+     * The loop body of a combinator. It is a static node that keeps all state in the frame and owns
+     * its call node, so each split copy of a combinator gets its own callback cache.
+     */
+    abstract static class CombinatorBody extends Node implements RepeatingNode {
+        @Child private LoxCallFunctionNode callNode = LoxCallFunctionNodeGen.create();
+
+        @Override
+        public final boolean executeRepeating(VirtualFrame frame) {
+            LoxArray array = (LoxArray) frame.getObject(ARRAY_SLOT);
+            long index = frame.getLong(INDEX_SLOT);
+            if (index >= array.getSize()) {
+                return false;
+            }
+            frame.setLong(INDEX_SLOT, index + 1);
+            return step(frame, array.get(index), index);
+        }
+
+        /**
+         * Processes one element. Returns {@code false} to stop the iteration early.
+         */
+        abstract boolean step(VirtualFrame frame, Object element, long index);
+
+        final Object call(VirtualFrame frame, Object... arguments) {
+            return callNode.execute(frame.getObject(CALLBACK_SLOT), arguments);
+        }
+    }
+
+    static final class MapBuiltInNode extends CombinatorBuiltInNode {
+        MapBuiltInNode() {
+            super("map", new Body());
+        }
+
+        @Override
+        Object initialResult(VirtualFrame frame) {
+            return new LoxArray();
+        }
+
+        private static final class Body extends CombinatorBody {
+            @Override
+            boolean step(VirtualFrame frame, Object element, long index) {
+                LoxArray result = (LoxArray) frame.getObject(RESULT_SLOT);
+                result.set(index, call(frame, element, index));
+                return true;
+            }
+        }
+    }
+
+    static final class FilterBuiltInNode extends CombinatorBuiltInNode {
+        FilterBuiltInNode() {
+            super("filter", new Body());
+        }
+
+        @Override
+        Object initialResult(VirtualFrame frame) {
+            return new LoxArray();
+        }
+
+        private static final class Body extends CombinatorBody {
+            @Override
+            boolean step(VirtualFrame frame, Object element, long index) {
+                if (LoxBytecodeRootNode.isTruthy(call(frame, element, index))) {
+                    LoxArray result = (LoxArray) frame.getObject(RESULT_SLOT);
+                    result.set(result.getSize(), element);
+                }
+                return true;
+            }
+        }
+    }
+
+    static final class ReduceBuiltInNode extends CombinatorBuiltInNode {
+        ReduceBuiltInNode() {
+            super("reduce", new Body());
+        }
+
+        @Override
+        Object initialResult(VirtualFrame frame) {
+            return getArgument(frame, 2);
+        }
+
+        private static final class Body extends CombinatorBody {
+            @Override
+            boolean step(VirtualFrame frame, Object element, long index) {
+                frame.setObject(RESULT_SLOT, call(frame, frame.getObject(RESULT_SLOT), element));
+                return true;
+            }
+        }
+    }
+
+    static final class ForEachBuiltInNode extends CombinatorBuiltInNode {
+        ForEachBuiltInNode() {
+            super("forEach", new Body());
+        }
+
+        @Override
+        Object initialResult(VirtualFrame frame) {
+            return Nil.INSTANCE;
+        }
+
+        private static final class Body extends CombinatorBody {
+            @Override
+            boolean step(VirtualFrame frame, Object element, long index) {
+                call(frame, element, index);
+                return true;
+            }
+        }
+    }
+
+    static final class SomeBuiltInNode extends CombinatorBuiltInNode {
+        SomeBuiltInNode() {
+            super("some", new Body());
+        }
+
+        @Override
+        Object initialResult(VirtualFrame frame) {
+            return false;
+        }
+
+        private static final class Body extends CombinatorBody {
+            @Override
+            boolean step(VirtualFrame frame, Object element, long index) {
+                if (LoxBytecodeRootNode.isTruthy(call(frame, element, index))) {
+                    frame.setObject(RESULT_SLOT, true);
+                    return false;
+                }
+                return true;
+            }
+        }
+    }
+
+    static final class EveryBuiltInNode extends CombinatorBuiltInNode {
+        EveryBuiltInNode() {
+            super("every", new Body());
+        }
+
+        @Override
+        Object initialResult(VirtualFrame frame) {
+            return true;
+        }
+
+        private static final class Body extends CombinatorBody {
+            @Override
+            boolean step(VirtualFrame frame, Object element, long index) {
+                if (!LoxBytecodeRootNode.isTruthy(call(frame, element, index))) {
+                    frame.setObject(RESULT_SLOT, false);
+                    return false;
+                }
+                return true;
+            }
+        }
+    }
+
+    static final class FindBuiltInNode extends CombinatorBuiltInNode {
+        FindBuiltInNode() {
+            super("find", new Body());
+        }
+
+        @Override
+        Object initialResult(VirtualFrame frame) {
+            return Nil.INSTANCE;
+        }
+
+        private static final class Body extends CombinatorBody {
+            @Override
+            boolean step(VirtualFrame frame, Object element, long index) {
+                if (LoxBytecodeRootNode.isTruthy(call(frame, element, index))) {
+                    frame.setObject(RESULT_SLOT, element);
+                    return false;
+                }
+                return true;
+            }
+        }
+    }
+}
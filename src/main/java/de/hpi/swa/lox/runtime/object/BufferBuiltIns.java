@@ -0,0 +1,164 @@
+package de.hpi.swa.lox.runtime.object;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+
+/**
+ * Built-in functions for {@link LoxBuffer}s. Offsets are byte offsets; {@code buffer[offset]} reads
+ * and writes single bytes like {@link #getByte}/{@link #setByte}.
+ */
+public final class BufferBuiltIns {
+
+    private BufferBuiltIns() {
+    }
+
+    public static void install(GlobalObject globals) {
+        ArrayBuiltIns.define(globals, "Buffer", BufferBuiltInsFactory.NewBufferBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "getByte", BufferBuiltInsFactory.GetByteBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "setByte", BufferBuiltInsFactory.SetByteBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "getInt64", BufferBuiltInsFactory.GetInt64BuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "setInt64", BufferBuiltInsFactory.SetInt64BuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "getFloat64", BufferBuiltInsFactory.GetFloat64BuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "setFloat64", BufferBuiltInsFactory.SetFloat64BuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "copyBuffer", BufferBuiltInsFactory.CopyBufferBuiltInNodeGen.create());
+    }
+
+    /** {@code Buffer(size)} allocates a zero-initialized buffer of {@code size} bytes. */
+    public abstract static class NewBufferBuiltInNode extends BuiltInNode.Unary {
+        @Specialization(guards = "size >= 0")
+        static Object doDefault(long size,
+                @Bind Node node) {
+            try {
+                return LoxBuffer.allocate(size);
+            } catch (OutOfMemoryError e) {
+                throw allocationError(size, node);
+            }
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static RuntimeException allocationError(long size, Node node) {
+            return ArrayBuiltIns.typeError("Cannot allocate a buffer of " + size + " bytes", node);
+        }
+
+        @Fallback
+        static Object doError(Object size,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "Buffer", size);
+        }
+    }
+
+    /** {@code getByte(buffer, offset)} reads an unsigned byte. */
+    public abstract static class GetByteBuiltInNode extends BuiltInNode.Binary {
+        @Specialization(guards = "buffer.inBounds(offset, 1)")
+        static long doDefault(LoxBuffer buffer, long offset) {
+            return buffer.getByte(offset);
+        }
+
+        @Fallback
+        static Object doError(Object buffer, Object offset,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "getByte", buffer, offset);
+        }
+    }
+
+    /** {@code setByte(buffer, offset, value)} writes the lowest 8 bits of a long. */
+    public abstract static class SetByteBuiltInNode extends BuiltInNode.Ternary {
+        @Specialization(guards = "buffer.inBounds(offset, 1)")
+        static Object doDefault(LoxBuffer buffer, long offset, long value) {
+            buffer.setByte(offset, value);
+            return Nil.INSTANCE;
+        }
+
+        @Fallback
+        static Object doError(Object buffer, Object offset, Object value,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "setByte", buffer, offset, value);
+        }
+    }
+
+    /** {@code getInt64(buffer, offset)} reads a long. */
+    public abstract static class GetInt64BuiltInNode extends BuiltInNode.Binary {
+        @Specialization(guards = "buffer.inBounds(offset, 8)")
+        static long doDefault(LoxBuffer buffer, long offset) {
+            return buffer.getInt64(offset);
+        }
+
+        @Fallback
+        static Object doError(Object buffer, Object offset,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "getInt64", buffer, offset);
+        }
+    }
+
+    /** {@code setInt64(buffer, offset, value)} writes a long. */
+    public abstract static class SetInt64BuiltInNode extends BuiltInNode.Ternary {
+        @Specialization(guards = "buffer.inBounds(offset, 8)")
+        static Object doDefault(LoxBuffer buffer, long offset, long value) {
+            buffer.setInt64(offset, value);
+            return Nil.INSTANCE;
+        }
+
+        @Fallback
+        static Object doError(Object buffer, Object offset, Object value,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "setInt64", buffer, offset, value);
+        }
+    }
+
+    /** {@code getFloat64(buffer, offset)} reads a double. */
+    public abstract static class GetFloat64BuiltInNode extends BuiltInNode.Binary {
+        @Specialization(guards = "buffer.inBounds(offset, 8)")
+        static double doDefault(LoxBuffer buffer, long offset) {
+            return buffer.getFloat64(offset);
+        }
+
+        @Fallback
+        static Object doError(Object buffer, Object offset,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "getFloat64", buffer, offset);
+        }
+    }
+
+    /** {@code setFloat64(buffer, offset, value)} writes a double; longs are converted. */
+    public abstract static class SetFloat64BuiltInNode extends BuiltInNode.Ternary {
+        @Specialization(guards = "buffer.inBounds(offset, 8)")
+        static Object doDouble(LoxBuffer buffer, long offset, double value) {
+            buffer.setFloat64(offset, value);
+            return Nil.INSTANCE;
+        }
+
+        @Specialization(guards = "buffer.inBounds(offset, 8)")
+        static Object doLong(LoxBuffer buffer, long offset, long value) {
+            buffer.setFloat64(offset, value);
+            return Nil.INSTANCE;
+        }
+
+        @Fallback
+        static Object doError(Object buffer, Object offset, Object value,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "setFloat64", buffer, offset, value);
+        }
+    }
+
+    /**
+     * {@code copyBuffer(source, sourceOffset, target, targetOffset, length)} copies bytes between
+     * buffers, or within one buffer.
+     */
+    public abstract static class CopyBufferBuiltInNode extends BuiltInNode.Quinary {
+        @Specialization(guards = { "length >= 0", "source.inBounds(sourceOffset, length)",
+                "target.inBounds(targetOffset, length)" })
+        static Object doDefault(LoxBuffer source, long sourceOffset, LoxBuffer target, long targetOffset, long length) {
+            LoxBuffer.copy(source, sourceOffset, target, targetOffset, length);
+            return Nil.INSTANCE;
+        }
+
+        @Fallback
+        static Object doError(Object source, Object sourceOffset, Object target, Object targetOffset, Object length,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "copyBuffer", source, sourceOffset, target, targetOffset, length);
+        }
+    }
+}
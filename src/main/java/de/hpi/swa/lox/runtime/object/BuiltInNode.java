@@ -1,13 +1,91 @@
 package de.hpi.swa.lox.runtime.object;
 
-
-
-
-
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.RootNode;
 
+/**
+ * Root of a function implemented in Java. Built-ins are called like any other {@link LoxFunction},
+ * so they receive their arguments after {@link LoxFunction#ARGUMENT_OFFSET}; missing arguments read
+ * as nil.
+ * <p>
+ * The nested fixed-arity subclasses unpack the frame arguments and pass them to an abstract
+ * {@code execute} method, so subclasses can specialize on them with the Truffle DSL.
+ */
 public abstract class BuiltInNode extends RootNode {
     BuiltInNode() {
         super(null);
     }
-}
\ No newline at end of file
+
+    BuiltInNode(FrameDescriptor frameDescriptor) {
+        super(null, frameDescriptor);
+    }
+
+    protected static Object getArgument(VirtualFrame frame, int index) {
+        Object[] arguments = frame.getArguments();
+        int i = index + LoxFunction.ARGUMENT_OFFSET;
+        return i < arguments.length ? arguments[i] : Nil.INSTANCE;
+    }
+
+    /**
+     * Built-ins are small, so splitting them per call site keeps their specializations and inline
+     * caches monomorphic.
+     */
+    @Override
+    public boolean isCloningAllowed() {
+        return true;
+    }
+
+    /**
+     * Creates the function object under which this built-in is made available to Lox programs.
+     */
+    public LoxFunction createFunction(String name) {
+        return new LoxFunction(name, getCallTarget(), null);
+    }
+
+    public abstract static class Unary extends BuiltInNode {
+        @Override
+        public final Object execute(VirtualFrame frame) {
+            return execute(getArgument(frame, 0));
+        }
+
+        public abstract Object execute(Object arg0);
+    }
+
+    public abstract static class Binary extends BuiltInNode {
+        @Override
+        public final Object execute(VirtualFrame frame) {
+            return execute(getArgument(frame, 0), getArgument(frame, 1));
+        }
+
+        public abstract Object execute(Object arg0, Object arg1);
+    }
+
+    public abstract static class Ternary extends BuiltInNode {
+        @Override
+        public final Object execute(VirtualFrame frame) {
+            return execute(getArgument(frame, 0), getArgument(frame, 1), getArgument(frame, 2));
+        }
+
+        public abstract Object execute(Object arg0, Object arg1, Object arg2);
+    }
+
+    public abstract static class Quaternary extends BuiltInNode {
+        @Override
+        public final Object execute(VirtualFrame frame) {
+            return execute(getArgument(frame, 0), getArgument(frame, 1), getArgument(frame, 2), getArgument(frame, 3));
+        }
+
+        public abstract Object execute(Object arg0, Object arg1, Object arg2, Object arg3);
+    }
+
+    public abstract static class Quinary extends BuiltInNode {
+        @Override
+        public final Object execute(VirtualFrame frame) {
+            return execute(getArgument(frame, 0), getArgument(frame, 1), getArgument(frame, 2), getArgument(frame, 3),
+                    getArgument(frame, 4));
+        }
+
+        public abstract Object execute(Object arg0, Object arg1, Object arg2, Object arg3, Object arg4);
+    }
+}
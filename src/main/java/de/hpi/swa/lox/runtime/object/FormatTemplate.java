@@ -0,0 +1,131 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.util.ArrayList;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+import de.hpi.swa.lox.error.LoxRuntimeError;
+
+/**
+ * A parsed format string of {@code format} and {@code printf}: literal text alternating with
+ * {@link Spec}s, starting and ending with a (possibly empty) literal.
+ * <p>
+ * A specifier has the form {@code %[-][0][width][.precision]conversion}, where the conversion is
+ * {@code d} for integers, {@code f} for integers or doubles in fixed-point notation (6 fractional
+ * digits by default) or {@code s} for any value as {@code print} shows it. {@code %%} stands for a
+ * percent sign and {@code %n} for a line separator, since Lox strings have no escape sequences.
+ */
+public final class FormatTemplate {
+    static final int DEFAULT_PRECISION = 6;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    @CompilerDirectives.CompilationFinal(dimensions = 1) final TruffleString[] literals;
+    @CompilerDirectives.CompilationFinal(dimensions = 1) final Spec[] specs;
+
+    private FormatTemplate(TruffleString[] literals, Spec[] specs) {
+        this.literals = literals;
+        this.specs = specs;
+    }
+
+    /** A format specifier. A {@code width} of 0 means no padding. */
+    static final class Spec {
+        final char conversion;
+        final boolean leftAlign;
+        final boolean zeroPad;
+        final int width;
+        final int precision;
+
+        Spec(char conversion, boolean leftAlign, boolean zeroPad, int width, int precision) {
+            this.conversion = conversion;
+            this.leftAlign = leftAlign;
+            this.zeroPad = zeroPad;
+            this.width = width;
+            this.precision = precision;
+        }
+
+        boolean isInteger() {
+            return conversion == 'd';
+        }
+
+        boolean isFixed() {
+            return conversion == 'f';
+        }
+
+        boolean isString() {
+            return conversion == 's';
+        }
+
+        @Override
+        public String toString() {
+            return "%" + (leftAlign ? "-" : "") + (zeroPad ? "0" : "") + (width > 0 ? width : "") +
+                            (isFixed() ? "." + precision : "") + conversion;
+        }
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    static FormatTemplate parse(TruffleString format, Node node) {
+        String source = format.toJavaStringUncached();
+        var literals = new ArrayList<TruffleString>();
+        var specs = new ArrayList<Spec>();
+        var literal = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i++);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            int start = i - 1;
+            boolean leftAlign = false;
+            boolean zeroPad = false;
+            for (; i < source.length(); i++) {
+                if (source.charAt(i) == '-') {
+                    leftAlign = true;
+                } else if (source.charAt(i) == '0') {
+                    zeroPad = true;
+                } else {
+                    break;
+                }
+            }
+            int width = 0;
+            while (i < source.length() && Character.isDigit(source.charAt(i))) {
+                width = Math.min(width * 10 + (source.charAt(i++) - '0'), Integer.MAX_VALUE / 10);
+            }
+            int precision = -1;
+            if (i < source.length() && source.charAt(i) == '.') {
+                i++;
+                precision = 0;
+                while (i < source.length() && Character.isDigit(source.charAt(i))) {
+                    precision = Math.min(precision * 10 + (source.charAt(i++) - '0'), Integer.MAX_VALUE / 10);
+                }
+            }
+            char conversion = i < source.length() ? source.charAt(i++) : 0;
+            boolean plain = !leftAlign && !zeroPad && width == 0 && precision < 0;
+            switch (conversion) {
+                case '%', 'n' -> {
+                    if (!plain) {
+                        throw formatError(source, start, i, node);
+                    }
+                    literal.append(conversion == '%' ? "%" : LINE_SEPARATOR);
+                }
+                case 'd', 'f', 's' -> {
+                    if (precision >= 0 && conversion != 'f' || zeroPad && (leftAlign || width == 0 || conversion == 's')) {
+                        throw formatError(source, start, i, node);
+                    }
+                    literals.add(TruffleString.fromJavaStringUncached(literal.toString(), StringBuiltIns.UTF_8));
+                    literal.setLength(0);
+                    specs.add(new Spec(conversion, leftAlign, zeroPad, width, precision < 0 ? DEFAULT_PRECISION : precision));
+                }
+                default -> throw formatError(source, start, i, node);
+            }
+        }
+        literals.add(TruffleString.fromJavaStringUncached(literal.toString(), StringBuiltIns.UTF_8));
+        return new FormatTemplate(literals.toArray(new TruffleString[0]), specs.toArray(new Spec[0]));
+    }
+
+    private static LoxRuntimeError formatError(String source, int start, int end, Node node) {
+        return new LoxRuntimeError("Invalid format specifier '" + source.substring(start, end) + "' in '" + source + "'", node);
+    }
+}
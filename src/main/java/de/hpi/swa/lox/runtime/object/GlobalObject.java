@@ -1,25 +1,34 @@
 package de.hpi.swa.lox.runtime.object;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
+/**
+ * The global variables of a context. Globals may be read and written by parallel built-ins running
+ * on several threads, so they are kept in a concurrent map. Declared but unassigned globals are
+ * represented by {@code null}, which is stored as a sentinel because the map does not allow null
+ * values.
+ */
 public class GlobalObject {
-    private final Map<String, Object> globals = new HashMap<>();
+    private static final Object UNDEFINED = new Object();
+
+    private final Map<String, Object> globals = new ConcurrentHashMap<>();
 
     @TruffleBoundary
     public Object get(String name) {
-        return globals.get(name);
+        Object value = globals.get(name);
+        return value == UNDEFINED ? null : value;
     }
 
     @TruffleBoundary
     public void set(String name, Object value) {
-        globals.put(name, value);
+        globals.put(name, value == null ? UNDEFINED : value);
     }
 
     @TruffleBoundary
     public boolean hasKey(String name) {
         return globals.containsKey(name);
     }
-}
\ No newline at end of file
+}
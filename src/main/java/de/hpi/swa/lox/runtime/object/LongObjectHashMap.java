@@ -0,0 +1,92 @@
+package de.hpi.swa.lox.runtime.object;
+
+import com.oracle.truffle.api.CompilerDirectives;
+
+/**
+ * An open-addressing hash map from primitive {@code long} keys to non-null values, using linear
+ * probing. Keys are never boxed. Entries cannot be removed, which is all the sparse array storage
+ * needs.
+ */
+final class LongObjectHashMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int count = 0;
+
+    LongObjectHashMap() {
+        keys = new long[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    int count() {
+        return count;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the value for {@code key}, or {@code null} if there is none.
+     */
+    Object get(long key) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    void put(long key, Object value) {
+        assert value != null;
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        count++;
+        if (count * 4 >= keys.length * 3) {
+            rehash();
+        }
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private void rehash() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        count = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Copies all entries into a dense array of the given length. Keys outside the array are ignored.
+     */
+    @CompilerDirectives.TruffleBoundary
+    Object[] toDenseArray(int length) {
+        Object[] result = new Object[length];
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null && keys[i] < length) {
+                result[(int) keys[i]] = values[i];
+            }
+        }
+        return result;
+    }
+}
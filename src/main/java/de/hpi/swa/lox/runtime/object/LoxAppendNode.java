@@ -0,0 +1,72 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.util.Objects;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.GenerateInline;
+import com.oracle.truffle.api.dsl.GenerateUncached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+
+import de.hpi.swa.lox.runtime.DoubleFormatter;
+
+/**
+ * Appends a value to a UTF-8 {@link TruffleStringBuilder} in the form {@code print} shows it.
+ * Strings, numbers, booleans and nil are appended without a boundary.
+ */
+@GenerateInline(false)
+@GenerateUncached
+public abstract class LoxAppendNode extends Node {
+    private static final TruffleString NIL = TruffleString.fromJavaStringUncached("nil", TruffleString.Encoding.UTF_8);
+    private static final TruffleString TRUE = TruffleString.fromJavaStringUncached("true", TruffleString.Encoding.UTF_8);
+    private static final TruffleString FALSE = TruffleString.fromJavaStringUncached("false", TruffleString.Encoding.UTF_8);
+
+    public abstract void execute(TruffleStringBuilder builder, Object value);
+
+    @Specialization
+    static void doString(TruffleStringBuilder builder, TruffleString value,
+            @Shared @Cached TruffleStringBuilder.AppendStringNode appendNode) {
+        appendNode.execute(builder, value);
+    }
+
+    @Specialization
+    static void doLong(TruffleStringBuilder builder, long value,
+            @Cached TruffleStringBuilder.AppendLongNumberNode appendNode) {
+        appendNode.execute(builder, value);
+    }
+
+    @Specialization
+    static void doDouble(TruffleStringBuilder builder, double value,
+            @Cached TruffleString.FromByteArrayNode fromByteArrayNode,
+            @Shared @Cached TruffleStringBuilder.AppendStringNode appendNode) {
+        appendNode.execute(builder, DoubleFormatter.toTruffleString(value, fromByteArrayNode));
+    }
+
+    @Specialization
+    static void doBoolean(TruffleStringBuilder builder, boolean value,
+            @Shared @Cached TruffleStringBuilder.AppendStringNode appendNode) {
+        appendNode.execute(builder, value ? TRUE : FALSE);
+    }
+
+    @Specialization
+    static void doNil(TruffleStringBuilder builder, Nil value,
+            @Shared @Cached TruffleStringBuilder.AppendStringNode appendNode) {
+        appendNode.execute(builder, NIL);
+    }
+
+    @Specialization(replaces = { "doString", "doLong", "doDouble", "doBoolean", "doNil" })
+    static void doGeneric(TruffleStringBuilder builder, Object value,
+            @Cached TruffleString.FromJavaStringNode fromJavaStringNode,
+            @Shared @Cached TruffleStringBuilder.AppendStringNode appendNode) {
+        appendNode.execute(builder, fromJavaStringNode.execute(toJavaString(value), TruffleString.Encoding.UTF_8));
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private static String toJavaString(Object value) {
+        return Objects.toString(value);
+    }
+}
@@ -1,29 +1,182 @@
 package de.hpi.swa.lox.runtime.object;
 
+import java.math.BigInteger;
 import java.util.Arrays;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.strings.TruffleString;
 
+/**
+ * A growable Lox array. The elements are kept in one of several storage strategies, selected by the
+ * type of the values written so far:
+ * <ul>
+ * <li>{@code null}: empty, no element was stored yet</li>
+ * <li>{@code long[]}, {@code double[]}, {@code boolean[]}: all elements have the same primitive
+ * type and are stored unboxed</li>
+ * <li>{@code Object[]}: any mix of values, {@code null} entries are holes that read as nil</li>
+ * <li>{@link LongObjectHashMap}: sparse, only the written indices are stored</li>
+ * </ul>
+ * An array only transitions to a more general strategy when a value of a new type is stored. The
+ * one exception is sparse storage, which switches back to {@code Object[]} once at least half of
+ * its indices are filled.
+ * <p>
+ * Arrays created from constant literals share the storage of a template and copy it on their first
+ * write.
+ */
 public class LoxArray {
-    private Object[] elements;
+    private static final int INITIAL_CAPACITY = 8;
+    /** The largest array length the JVM reliably supports. */
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+    /** Writes that leave a gap larger than this (and larger than the array) go to sparse storage. */
+    private static final int SPARSE_MIN_GAP = 1024;
+
+    private Object storage;
     int size = 0;
+    /** Whether {@link #storage} is shared with other arrays and must be copied before writing. */
+    private boolean shared = false;
 
     public LoxArray() {
-        elements = new Object[10];
+        storage = null;
         size = 0;
     }
 
+    /**
+     * Creates an array holding {@code elements}. The array may use {@code elements} as its storage,
+     * so the caller must not modify it afterwards.
+     */
     public LoxArray(Object[] elements) {
-        this.elements = Arrays.copyOf(elements, elements.length);
+        this.storage = storageFor(elements);
         this.size = elements.length;
     }
 
-    public Object get(int index) {
-        if (elements.length <= index || index < 0) {
+    private LoxArray(Object storage, int size, boolean shared) {
+        this.storage = storage;
+        this.size = size;
+        this.shared = shared;
+    }
+
+    /**
+     * Creates the template for a constant array literal. Its storage is only ever shared through
+     * {@link #copyOnWrite()}, never written.
+     */
+    public static LoxArray createTemplate(Object[] constants) {
+        return new LoxArray(storageFor(constants), constants.length, true);
+    }
+
+    /**
+     * Returns a new array with the same elements that shares this array's storage until either of
+     * them is written to.
+     */
+    public LoxArray copyOnWrite() {
+        shared = true;
+        return new LoxArray(storage, size, true);
+    }
+
+    private static Object storageFor(Object[] elements) {
+        if (elements.length == 0) {
+            return null;
+        }
+        Object first = elements[0];
+        if (first instanceof Long) {
+            long[] longs = new long[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                if (!(elements[i] instanceof Long value)) {
+                    return elements;
+                }
+                longs[i] = value;
+            }
+            return longs;
+        } else if (first instanceof Double) {
+            double[] doubles = new double[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                if (!(elements[i] instanceof Double value)) {
+                    return elements;
+                }
+                doubles[i] = value;
+            }
+            return doubles;
+        } else if (first instanceof Boolean) {
+            boolean[] booleans = new boolean[elements.length];
+            for (int i = 0; i < elements.length; i++) {
+                if (!(elements[i] instanceof Boolean value)) {
+                    return elements;
+                }
+                booleans[i] = value;
+            }
+            return booleans;
+        }
+        return elements;
+    }
+
+    public boolean isEmptyStorage() {
+        return storage == null;
+    }
+
+    public boolean isLongStorage() {
+        return storage instanceof long[];
+    }
+
+    public boolean isDoubleStorage() {
+        return storage instanceof double[];
+    }
+
+    public boolean isBooleanStorage() {
+        return storage instanceof boolean[];
+    }
+
+    public boolean isObjectStorage() {
+        return storage instanceof Object[];
+    }
+
+    public boolean isSparseStorage() {
+        return storage instanceof LongObjectHashMap;
+    }
+
+    /**
+     * Whether {@code index} can be written to, i.e. the resulting array length is representable.
+     */
+    public boolean isValidIndex(long index) {
+        return index >= 0 && index < MAX_LENGTH;
+    }
+
+    /**
+     * Whether {@code index} refers to an existing element.
+     */
+    public boolean inBounds(long index) {
+        return index >= 0 && index < size;
+    }
+
+    /**
+     * Whether {@code index} refers to an existing element or is the next index to append to.
+     */
+    public boolean inBoundsForWrite(long index) {
+        return index >= 0 && index <= size;
+    }
+
+    public long getLong(int index) {
+        return ((long[]) storage)[index];
+    }
+
+    public double getDouble(int index) {
+        return ((double[]) storage)[index];
+    }
+
+    public boolean getBoolean(int index) {
+        return ((boolean[]) storage)[index];
+    }
+
+    public Object get(long index) {
+        if (index >= size || index < 0) {
             return Nil.INSTANCE;
         }
-        var result = elements[index];
+        var result = switch (storage) {
+            case long[] longs -> longs[(int) index];
+            case double[] doubles -> doubles[(int) index];
+            case boolean[] booleans -> booleans[(int) index];
+            case Object[] objects -> objects[(int) index];
+            case LongObjectHashMap sparse -> sparse.get(index);
+            default -> null;
+        };
         if (result != null) {
             return result;
         } else {
@@ -31,19 +184,473 @@ public class LoxArray {
         }
     }
 
-    public void set(int index, Object value) {
+    /**
+     * Stores a long into an array with long storage. The index must be in bounds or the next index
+     * to append to.
+     */
+    public void setLong(int index, long value) {
+        if (shared) {
+            unshare();
+        }
+        long[] longs = (long[]) storage;
+        if (index >= longs.length) {
+            longs = (long[]) grow(index + 1);
+        }
+        longs[index] = value;
+        if (index >= size) {
+            size = index + 1;
+        }
+    }
+
+    /**
+     * Stores a double into an array with double storage. The index must be in bounds or the next
+     * index to append to.
+     */
+    public void setDouble(int index, double value) {
+        if (shared) {
+            unshare();
+        }
+        double[] doubles = (double[]) storage;
+        if (index >= doubles.length) {
+            doubles = (double[]) grow(index + 1);
+        }
+        doubles[index] = value;
         if (index >= size) {
             size = index + 1;
         }
-        if (index >= elements.length) {
-            this.ensureCapacity();
+    }
+
+    /**
+     * Stores a boolean into an array with boolean storage. The index must be in bounds or the next
+     * index to append to.
+     */
+    public void setBoolean(int index, boolean value) {
+        if (shared) {
+            unshare();
+        }
+        boolean[] booleans = (boolean[]) storage;
+        if (index >= booleans.length) {
+            booleans = (boolean[]) grow(index + 1);
+        }
+        booleans[index] = value;
+        if (index >= size) {
+            size = index + 1;
+        }
+    }
+
+    /**
+     * Stores any value, transitioning to a more general storage strategy if needed. The index must be
+     * {@linkplain #isValidIndex(long) valid}.
+     */
+    public void set(long longIndex, Object value) {
+        if (shared) {
+            unshare();
+        }
+        if (storage instanceof LongObjectHashMap sparse) {
+            setSparse(sparse, longIndex, value);
+            return;
+        }
+        if (longIndex > size && isFarBeyondEnd(longIndex)) {
+            setSparse(toSparse(), longIndex, value);
+            return;
+        }
+        int index = (int) longIndex;
+        if (storage == null) {
+            storage = index == 0 ? newStorageFor(value) : new Object[INITIAL_CAPACITY];
+        }
+        if (index > size || !accepts(value)) {
+            // a hole or a value of a new type: only the generic storage can represent it
+            generalize();
+        }
+        switch (storage) {
+            case long[] longs -> setLong(index, (long) value);
+            case double[] doubles -> setDouble(index, (double) value);
+            case boolean[] booleans -> setBoolean(index, (boolean) value);
+            default -> {
+                Object[] objects = (Object[]) storage;
+                if (index >= objects.length) {
+                    objects = (Object[]) grow(index + 1);
+                }
+                objects[index] = value;
+                if (index >= size) {
+                    size = index + 1;
+                }
+            }
+        }
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private void unshare() {
+        storage = switch (storage) {
+            case long[] longs -> longs.clone();
+            case double[] doubles -> doubles.clone();
+            case boolean[] booleans -> booleans.clone();
+            case Object[] objects -> objects.clone();
+            case null, default -> storage;
+        };
+        shared = false;
+    }
+
+    private boolean isFarBeyondEnd(long index) {
+        return index - size > SPARSE_MIN_GAP && index > 2L * size;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private LongObjectHashMap toSparse() {
+        var sparse = new LongObjectHashMap();
+        for (int i = 0; i < size; i++) {
+            Object element = get(i);
+            if (element != Nil.INSTANCE) {
+                sparse.put(i, element);
+            }
         }
-        elements[index] = value;
+        storage = sparse;
+        return sparse;
     }
 
     @CompilerDirectives.TruffleBoundary
-    private void ensureCapacity() {
-        elements = Arrays.copyOf(elements, Math.max(elements.length, size) * 2);
+    private void setSparse(LongObjectHashMap sparse, long index, Object value) {
+        sparse.put(index, value);
+        if (index >= size) {
+            size = (int) index + 1;
+        }
+        if (sparse.count() * 2L >= size) {
+            // dense enough again
+            storage = sparse.toDenseArray(size);
+        }
+    }
+
+    private static Object newStorageFor(Object value) {
+        if (value instanceof Long) {
+            return new long[INITIAL_CAPACITY];
+        } else if (value instanceof Double) {
+            return new double[INITIAL_CAPACITY];
+        } else if (value instanceof Boolean) {
+            return new boolean[INITIAL_CAPACITY];
+        }
+        return new Object[INITIAL_CAPACITY];
+    }
+
+    private boolean accepts(Object value) {
+        return switch (storage) {
+            case long[] longs -> value instanceof Long;
+            case double[] doubles -> value instanceof Double;
+            case boolean[] booleans -> value instanceof Boolean;
+            default -> true;
+        };
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private void generalize() {
+        if (storage instanceof Object[]) {
+            return;
+        }
+        Object[] objects = new Object[Math.max(capacity(), INITIAL_CAPACITY)];
+        for (int i = 0; i < size; i++) {
+            objects[i] = get(i);
+        }
+        storage = objects;
+    }
+
+    private int capacity() {
+        return switch (storage) {
+            case long[] longs -> longs.length;
+            case double[] doubles -> doubles.length;
+            case boolean[] booleans -> booleans.length;
+            case Object[] objects -> objects.length;
+            case null, default -> 0;
+        };
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private Object grow(int minCapacity) {
+        int newCapacity = (int) Math.min(Math.max(minCapacity, capacity() * 2L), MAX_LENGTH);
+        storage = copyStorage(newCapacity);
+        return storage;
+    }
+
+    private Object copyStorage(int newLength) {
+        return switch (storage) {
+            case long[] longs -> Arrays.copyOf(longs, newLength);
+            case double[] doubles -> Arrays.copyOf(doubles, newLength);
+            case boolean[] booleans -> Arrays.copyOf(booleans, newLength);
+            default -> Arrays.copyOf((Object[]) storage, newLength);
+        };
+    }
+
+    /*
+     * Bulk operations used by the array built-ins. They move elements with System.arraycopy on the
+     * raw storage, whatever its strategy. Indices are checked by the callers.
+     */
+
+    /**
+     * Makes sure the storage is dense and not shared, so it can be modified in place.
+     */
+    private void makeDenseAndWritable() {
+        if (shared) {
+            unshare();
+        }
+        if (storage instanceof LongObjectHashMap sparse) {
+            storage = sparse.toDenseArray(size);
+        }
+    }
+
+    /**
+     * Removes the last element of an array with long storage, which must not be empty.
+     */
+    public long popLong() {
+        return ((long[]) storage)[--size];
+    }
+
+    /**
+     * Removes the last element of an array with double storage, which must not be empty.
+     */
+    public double popDouble() {
+        return ((double[]) storage)[--size];
+    }
+
+    public Object pop() {
+        if (size == 0) {
+            return Nil.INSTANCE;
+        }
+        return removeAt(size - 1);
+    }
+
+    /**
+     * Inserts {@code value} before {@code index}, which must be between 0 and the size.
+     */
+    public void insert(int index, Object value) {
+        makeDenseAndWritable();
+        if (storage == null) {
+            storage = newStorageFor(value);
+        } else if (!accepts(value)) {
+            generalize();
+        }
+        if (size + 1 > capacity()) {
+            grow(size + 1);
+        }
+        System.arraycopy(storage, index, storage, index + 1, size - index);
+        size++;
+        set(index, value);
+    }
+
+    /**
+     * Removes and returns the element at {@code index}, which must be in bounds.
+     */
+    public Object removeAt(int index) {
+        makeDenseAndWritable();
+        Object removed = get(index);
+        System.arraycopy(storage, index + 1, storage, index, size - index - 1);
+        size--;
+        if (storage instanceof Object[] objects) {
+            objects[size] = null;
+        }
+        return removed;
+    }
+
+    /**
+     * Returns a new array with the elements from {@code from} (inclusive) to {@code to} (exclusive),
+     * using the same storage strategy.
+     */
+    public LoxArray slice(int from, int to) {
+        if (from >= to) {
+            return new LoxArray();
+        }
+        return switch (storage) {
+            case long[] longs -> new LoxArray(Arrays.copyOfRange(longs, from, to), to - from, false);
+            case double[] doubles -> new LoxArray(Arrays.copyOfRange(doubles, from, to), to - from, false);
+            case boolean[] booleans -> new LoxArray(Arrays.copyOfRange(booleans, from, to), to - from, false);
+            case Object[] objects -> new LoxArray(Arrays.copyOfRange(objects, from, to), to - from, false);
+            case null, default -> {
+                Object[] objects = new Object[to - from];
+                for (int i = from; i < to; i++) {
+                    objects[i - from] = get(i);
+                }
+                yield new LoxArray(objects);
+            }
+        };
+    }
+
+    public static LoxArray concat(LoxArray left, LoxArray right) {
+        if (left.size == 0) {
+            return right.slice(0, right.size);
+        } else if (right.size == 0) {
+            return left.slice(0, left.size);
+        }
+        int length = left.size + right.size;
+        if (left.storage.getClass() == right.storage.getClass() && !left.isSparseStorage()) {
+            Object result = left.copyStorage(length);
+            System.arraycopy(right.storage, 0, result, left.size, right.size);
+            return new LoxArray(result, length, false);
+        }
+        Object[] objects = new Object[length];
+        for (int i = 0; i < left.size; i++) {
+            objects[i] = left.get(i);
+        }
+        for (int i = 0; i < right.size; i++) {
+            objects[left.size + i] = right.get(i);
+        }
+        return new LoxArray(objects);
+    }
+
+    /**
+     * Fills an array with long storage from {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    public void fillLong(long value, int from, int to) {
+        if (shared) {
+            unshare();
+        }
+        Arrays.fill((long[]) storage, from, to, value);
+    }
+
+    /**
+     * Fills an array with double storage from {@code from} (inclusive) to {@code to} (exclusive).
+     */
+    public void fillDouble(double value, int from, int to) {
+        if (shared) {
+            unshare();
+        }
+        Arrays.fill((double[]) storage, from, to, value);
+    }
+
+    /**
+     * Fills the array from {@code from} (inclusive) to {@code to} (exclusive), both at most the size.
+     */
+    public void fill(Object value, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        makeDenseAndWritable();
+        if (!accepts(value)) {
+            generalize();
+        }
+        switch (storage) {
+            case long[] longs -> Arrays.fill(longs, from, to, (long) value);
+            case double[] doubles -> Arrays.fill(doubles, from, to, (double) value);
+            case boolean[] booleans -> Arrays.fill(booleans, from, to, (boolean) value);
+            default -> Arrays.fill((Object[]) storage, from, to, value);
+        }
+    }
+
+    /**
+     * Copies the elements from {@code from} (inclusive) to {@code to} (exclusive) to {@code target},
+     * without growing the array.
+     */
+    public void copyWithin(int target, int from, int to) {
+        int count = Math.min(to - from, size - target);
+        if (count <= 0) {
+            return;
+        }
+        makeDenseAndWritable();
+        System.arraycopy(storage, from, storage, target, count);
+    }
+
+    /**
+     * Sorts an array with long storage in ascending order.
+     */
+    public void sortLongs() {
+        if (shared) {
+            unshare();
+        }
+        Arrays.sort((long[]) storage, 0, size);
+    }
+
+    /**
+     * Sorts an array with double storage in ascending order.
+     */
+    public void sortDoubles() {
+        if (shared) {
+            unshare();
+        }
+        Arrays.sort((double[]) storage, 0, size);
+    }
+
+    /**
+     * Returns a copy of the elements in a new {@code Object[]}, with holes read as nil.
+     */
+    public Object[] toObjectArray() {
+        Object[] objects = new Object[size];
+        for (int i = 0; i < size; i++) {
+            objects[i] = get(i);
+        }
+        return objects;
+    }
+
+    /**
+     * Replaces all elements of the array with {@code elements}. The array may use {@code elements}
+     * as its storage, so the caller must not modify it afterwards.
+     */
+    public void setElements(Object[] elements) {
+        storage = storageFor(elements);
+        size = elements.length;
+        shared = false;
+    }
+
+    public long indexOfLong(long value) {
+        long[] longs = (long[]) storage;
+        for (int i = 0; i < size; i++) {
+            if (longs[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public long indexOfDouble(double value) {
+        double[] doubles = (double[]) storage;
+        for (int i = 0; i < size; i++) {
+            if (doubles[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first index of an element that is {@code ==} to {@code value}, or -1. The typed
+     * {@link #indexOfLong} and {@link #indexOfDouble} give the same answers for their storage.
+     */
+    @CompilerDirectives.TruffleBoundary
+    public long indexOf(Object value) {
+        for (int i = 0; i < size; i++) {
+            if (isEqual(get(i), value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether {@code left == right} holds in Lox, like {@code LoxEqual}: numbers are compared by
+     * value, strings by contents and everything else by identity.
+     */
+    @CompilerDirectives.TruffleBoundary
+    static boolean isEqual(Object left, Object right) {
+        if (left instanceof Long l) {
+            return switch (right) {
+                case Long r -> l.longValue() == r.longValue();
+                case Double r -> l == r.doubleValue();
+                case BigInteger r -> BigInteger.valueOf(l).equals(r);
+                default -> false;
+            };
+        } else if (left instanceof Double l) {
+            return switch (right) {
+                case Long r -> l.doubleValue() == r;
+                case Double r -> l.doubleValue() == r.doubleValue();
+                default -> false;
+            };
+        } else if (left instanceof BigInteger l) {
+            return switch (right) {
+                case Long r -> l.equals(BigInteger.valueOf(r));
+                case BigInteger r -> l.equals(r);
+                default -> false;
+            };
+        } else if (left instanceof Boolean l) {
+            return l.equals(right);
+        } else if (left instanceof TruffleString l && right instanceof TruffleString r) {
+            return TruffleString.EqualNode.getUncached().execute(l, r, TruffleString.Encoding.UTF_8);
+        }
+        return left == right;
     }
 
     @CompilerDirectives.TruffleBoundary
@@ -53,20 +660,23 @@ public class LoxArray {
         for (int i = 0; i < size; i++) {
             if (i > 0)
                 sb.append(", ");
-            Object element = elements[i];
-            if (element instanceof TruffleString) {
-                sb.append("\"").append(element).append("\"");
-            } else if (element instanceof Nil) {
-                sb.append("nil");
-            } else {
-                sb.append(element);
-            }
+            appendElement(sb, get(i));
         }
         sb.append("]");
         return sb.toString();
     }
 
+    static void appendElement(StringBuilder sb, Object element) {
+        if (element instanceof TruffleString) {
+            sb.append("\"").append(element).append("\"");
+        } else if (element instanceof Nil) {
+            sb.append("nil");
+        } else {
+            sb.append(element);
+        }
+    }
+
     public int getSize() {
         return size;
     }
-}
\ No newline at end of file
+}
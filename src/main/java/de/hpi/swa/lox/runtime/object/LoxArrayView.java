@@ -0,0 +1,71 @@
+package de.hpi.swa.lox.runtime.object;
+
+import com.oracle.truffle.api.CompilerDirectives;
+
+/**
+ * A window onto a range of a {@link LoxArray}, created with {@code view(array, start[, end])}. The
+ * view shares the elements of the array: writes through the view are visible in the array and vice
+ * versa. Its length is fixed, and elements the array no longer has read as nil.
+ */
+public final class LoxArrayView {
+    private final LoxArray array;
+    private final int offset;
+    private final int length;
+
+    public LoxArrayView(LoxArray array, int offset, int length) {
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public LoxArray getArray() {
+        return array;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getSize() {
+        return length;
+    }
+
+    /**
+     * Whether {@code index} refers to an element of the view that the array still has.
+     */
+    public boolean inBounds(long index) {
+        return index >= 0 && index < length && offset + index < array.getSize();
+    }
+
+    public Object get(long index) {
+        if (index < 0 || index >= length) {
+            return Nil.INSTANCE;
+        }
+        return array.get(offset + index);
+    }
+
+    public void set(long index, Object value) {
+        array.set(offset + index, value);
+    }
+
+    /**
+     * Returns a view of the elements from {@code from} (inclusive) to {@code to} (exclusive) of this
+     * view, referencing the same array.
+     */
+    public LoxArrayView subView(int from, int to) {
+        return new LoxArrayView(array, offset + from, Math.max(0, to - from));
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            LoxArray.appendElement(sb, get(i));
+        }
+        return sb.append("]").toString();
+    }
+}
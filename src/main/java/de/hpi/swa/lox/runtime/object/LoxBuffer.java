@@ -0,0 +1,159 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.oracle.truffle.api.CompilerDirectives;
+
+/**
+ * A fixed-size block of off-heap memory, created zero-initialized with {@code Buffer(size)}. Offsets
+ * are 64-bit byte offsets, so a buffer may be larger than any Java array. Multi-byte values are
+ * stored little-endian.
+ * <p>
+ * The memory is split into direct {@link ByteBuffer} chunks of {@link #CHUNK_SIZE} bytes, since a
+ * single {@code ByteBuffer} is limited to {@code int} positions. Values that straddle two chunks
+ * are assembled byte by byte.
+ */
+public final class LoxBuffer {
+    private static final int CHUNK_SHIFT = 30;
+    static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final long size;
+    @CompilerDirectives.CompilationFinal(dimensions = 1) private final ByteBuffer[] chunks;
+
+    private LoxBuffer(long size, ByteBuffer[] chunks) {
+        this.size = size;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Allocates a buffer of {@code size} bytes. Throws {@link OutOfMemoryError} if the memory cannot
+     * be allocated.
+     */
+    @CompilerDirectives.TruffleBoundary
+    public static LoxBuffer allocate(long size) {
+        int count = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        ByteBuffer[] chunks = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            int chunkSize = (int) Math.min(CHUNK_SIZE, size - (long) i * CHUNK_SIZE);
+            chunks[i] = ByteBuffer.allocateDirect(chunkSize).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new LoxBuffer(size, chunks);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Whether {@code length} bytes starting at {@code offset} lie within the buffer.
+     */
+    public boolean inBounds(long offset, long length) {
+        return offset >= 0 && offset <= size - length;
+    }
+
+    private ByteBuffer chunk(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)];
+    }
+
+    private static int position(long offset) {
+        return (int) (offset & CHUNK_MASK);
+    }
+
+    private static boolean withinChunk(long offset, int length) {
+        return position(offset) <= CHUNK_SIZE - length;
+    }
+
+    public long getByte(long offset) {
+        return Byte.toUnsignedLong(chunk(offset).get(position(offset)));
+    }
+
+    public void setByte(long offset, long value) {
+        chunk(offset).put(position(offset), (byte) value);
+    }
+
+    public long getInt64(long offset) {
+        if (withinChunk(offset, Long.BYTES)) {
+            return chunk(offset).getLong(position(offset));
+        }
+        return getInt64Straddling(offset);
+    }
+
+    public void setInt64(long offset, long value) {
+        if (withinChunk(offset, Long.BYTES)) {
+            chunk(offset).putLong(position(offset), value);
+        } else {
+            setInt64Straddling(offset, value);
+        }
+    }
+
+    public double getFloat64(long offset) {
+        return Double.longBitsToDouble(getInt64(offset));
+    }
+
+    public void setFloat64(long offset, double value) {
+        setInt64(offset, Double.doubleToRawLongBits(value));
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private long getInt64Straddling(long offset) {
+        long value = 0;
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            value = (value << 8) | getByte(offset + i);
+        }
+        return value;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private void setInt64Straddling(long offset, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            setByte(offset + i, value >>> (8 * i));
+        }
+    }
+
+    /**
+     * Copies {@code length} bytes from {@code source} to {@code target}, both of which must be in
+     * bounds. Overlapping ranges within the same buffer are copied as if through a temporary copy.
+     */
+    @CompilerDirectives.TruffleBoundary
+    public static void copy(LoxBuffer source, long sourceOffset, LoxBuffer target, long targetOffset, long length) {
+        if (source == target && sourceOffset < targetOffset && targetOffset < sourceOffset + length) {
+            // Copy backwards, one chunk-bounded piece at a time, so the overlap is not clobbered.
+            long remaining = length;
+            while (remaining > 0) {
+                long sourceEnd = sourceOffset + remaining;
+                long targetEnd = targetOffset + remaining;
+                int piece = (int) Math.min(remaining, Math.min(startOfPiece(sourceEnd), startOfPiece(targetEnd)));
+                copyPiece(source, sourceEnd - piece, target, targetEnd - piece, piece);
+                remaining -= piece;
+            }
+            return;
+        }
+        long copied = 0;
+        while (copied < length) {
+            long from = sourceOffset + copied;
+            long to = targetOffset + copied;
+            int piece = (int) Math.min(length - copied,
+                    Math.min(CHUNK_SIZE - position(from), CHUNK_SIZE - position(to)));
+            copyPiece(source, from, target, to, piece);
+            copied += piece;
+        }
+    }
+
+    /**
+     * The number of bytes before {@code end} that are in the same chunk as the byte before it.
+     */
+    private static long startOfPiece(long end) {
+        return position(end - 1) + 1;
+    }
+
+    private static void copyPiece(LoxBuffer source, long from, LoxBuffer target, long to, int length) {
+        target.chunk(to).put(position(to), source.chunk(from), position(from), length);
+    }
+
+    @Override
+    public String toString() {
+        return "Buffer(" + size + ")";
+    }
+}
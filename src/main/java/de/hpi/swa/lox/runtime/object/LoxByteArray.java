@@ -0,0 +1,44 @@
+package de.hpi.swa.lox.runtime.object;
+
+import com.oracle.truffle.api.CompilerDirectives;
+
+/**
+ * A fixed-length array of unsigned bytes, created zero-initialized with {@code ByteArray(n)}.
+ * Elements read as longs between 0 and 255; written longs are truncated to their lowest 8 bits.
+ */
+public final class LoxByteArray {
+    private final byte[] elements;
+
+    public LoxByteArray(int length) {
+        this.elements = new byte[length];
+    }
+
+    public int getSize() {
+        return elements.length;
+    }
+
+    public boolean inBounds(long index) {
+        return index >= 0 && index < elements.length;
+    }
+
+    public long get(int index) {
+        return Byte.toUnsignedLong(elements[index]);
+    }
+
+    public void set(int index, long value) {
+        elements[index] = (byte) value;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < elements.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(get(i));
+        }
+        return sb.append("]").toString();
+    }
+}
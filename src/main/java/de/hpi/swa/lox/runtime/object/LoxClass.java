@@ -7,8 +7,10 @@ import com.oracle.truffle.api.object.Shape;
 public class LoxClass extends DynamicObject {
     public final String name;
     static final Shape classShape = Shape.newBuilder().allowImplicitCastIntToLong(true).build();
+    /** The key of the constant property that links instances to their class; no Lox name equals it. */
+    static final Object CLASS_KEY = new Object();
     public final Shape instanceShape = Shape.newBuilder()
-            .addConstantProperty("Class", this, 0)
+            .addConstantProperty(CLASS_KEY, this, 0)
             .allowImplicitCastIntToLong(true).build();
 
     public LoxClass(String name) {
@@ -0,0 +1,39 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+
+/**
+ * A fixed-length array of doubles, created zero-initialized with {@code Float64Array(n)}. It never
+ * changes its representation; longs written to it are converted to doubles.
+ */
+public final class LoxFloat64Array {
+    private final double[] elements;
+
+    public LoxFloat64Array(int length) {
+        this.elements = new double[length];
+    }
+
+    public int getSize() {
+        return elements.length;
+    }
+
+    public boolean inBounds(long index) {
+        return index >= 0 && index < elements.length;
+    }
+
+    public double get(int index) {
+        return elements[index];
+    }
+
+    public void set(int index, double value) {
+        elements[index] = value;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    @Override
+    public String toString() {
+        return Arrays.toString(elements);
+    }
+}
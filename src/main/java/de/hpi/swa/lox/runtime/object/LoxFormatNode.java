@@ -0,0 +1,210 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.math.BigInteger;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateInline;
+import com.oracle.truffle.api.dsl.GenerateUncached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+
+import de.hpi.swa.lox.error.LoxRuntimeError;
+import de.hpi.swa.lox.runtime.DoubleFormatter;
+
+/**
+ * Renders a format string with its arguments, as {@code format} and {@code printf} do. The format
+ * string is parsed into a {@link FormatTemplate} once per call site and string identity, so a
+ * literal format string costs no parsing and its specifiers are unrolled into type-specialized
+ * appends.
+ */
+@GenerateInline(false)
+@GenerateUncached
+public abstract class LoxFormatNode extends Node {
+
+    public abstract TruffleString execute(Object format, Object[] arguments);
+
+    @Specialization(guards = "format == cachedFormat", limit = "3")
+    @ExplodeLoop
+    static TruffleString doCached(TruffleString format, Object[] arguments,
+            @Bind Node node,
+            @Cached("format") TruffleString cachedFormat,
+            @Cached("parse(cachedFormat, node)") FormatTemplate template,
+            @Cached("createValueNodes(template)") FormatValueNode[] valueNodes,
+            @Shared @Cached TruffleStringBuilder.AppendStringNode appendNode,
+            @Shared @Cached TruffleStringBuilder.ToStringNode toStringNode) {
+        FormatTemplate.Spec[] specs = template.specs;
+        checkArgumentCount(specs.length, arguments, node);
+        var builder = TruffleStringBuilder.create(StringBuiltIns.UTF_8, format.byteLength(StringBuiltIns.UTF_8));
+        for (int i = 0; i < valueNodes.length; i++) {
+            appendNode.execute(builder, template.literals[i]);
+            valueNodes[i].execute(builder, specs[i], arguments[i]);
+        }
+        appendNode.execute(builder, template.literals[specs.length]);
+        return toStringNode.execute(builder);
+    }
+
+    @Specialization(replaces = "doCached")
+    static TruffleString doGeneric(TruffleString format, Object[] arguments,
+            @Bind Node node,
+            @Cached FormatValueNode valueNode,
+            @Shared @Cached TruffleStringBuilder.AppendStringNode appendNode,
+            @Shared @Cached TruffleStringBuilder.ToStringNode toStringNode) {
+        FormatTemplate template = FormatTemplate.parse(format, node);
+        FormatTemplate.Spec[] specs = template.specs;
+        checkArgumentCount(specs.length, arguments, node);
+        var builder = TruffleStringBuilder.create(StringBuiltIns.UTF_8, format.byteLength(StringBuiltIns.UTF_8));
+        for (int i = 0; i < specs.length; i++) {
+            appendNode.execute(builder, template.literals[i]);
+            valueNode.execute(builder, specs[i], arguments[i]);
+        }
+        appendNode.execute(builder, template.literals[specs.length]);
+        return toStringNode.execute(builder);
+    }
+
+    @Fallback
+    static TruffleString doError(Object format, Object[] arguments,
+            @Bind Node node) {
+        throw ArrayBuiltIns.typeError("Expected a format string, got ", format, node);
+    }
+
+    static FormatTemplate parse(TruffleString format, Node node) {
+        return FormatTemplate.parse(format, node);
+    }
+
+    static FormatValueNode[] createValueNodes(FormatTemplate template) {
+        var nodes = new FormatValueNode[template.specs.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = LoxFormatNodeGen.FormatValueNodeGen.create();
+        }
+        return nodes;
+    }
+
+    private static void checkArgumentCount(int expected, Object[] arguments, Node node) {
+        if (arguments.length != expected) {
+            throw argumentCountError(expected, arguments.length, node);
+        }
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private static LoxRuntimeError argumentCountError(int expected, int actual, Node node) {
+        return new LoxRuntimeError("Format string expects " + expected + " arguments, got " + actual, node);
+    }
+
+    /**
+     * Appends one argument according to its {@link FormatTemplate.Spec}. {@code %f} also takes
+     * integers, which are printed exactly instead of being rounded to a double first.
+     */
+    @GenerateInline(false)
+    @GenerateUncached
+    abstract static class FormatValueNode extends Node {
+
+        abstract void execute(TruffleStringBuilder builder, FormatTemplate.Spec spec, Object value);
+
+        @Specialization(guards = "spec.isInteger()")
+        static void doInteger(TruffleStringBuilder builder, FormatTemplate.Spec spec, long value,
+                @Cached TruffleString.FromLongNode fromLongNode,
+                @Shared @Cached AppendPaddedNode appendPaddedNode) {
+            appendPaddedNode.execute(builder, spec, fromLongNode.execute(value, StringBuiltIns.UTF_8, true), spec.zeroPad);
+        }
+
+        @Specialization(guards = "spec.isInteger()")
+        static void doBigInteger(TruffleStringBuilder builder, FormatTemplate.Spec spec, BigInteger value,
+                @Cached TruffleString.FromJavaStringNode fromJavaStringNode,
+                @Shared @Cached AppendPaddedNode appendPaddedNode) {
+            appendPaddedNode.execute(builder, spec, fromJavaStringNode.execute(toJavaString(value), StringBuiltIns.UTF_8), spec.zeroPad);
+        }
+
+        @Specialization(guards = "spec.isFixed()")
+        static void doFixed(TruffleStringBuilder builder, FormatTemplate.Spec spec, double value,
+                @Shared @Cached TruffleString.FromByteArrayNode fromByteArrayNode,
+                @Shared @Cached AppendPaddedNode appendPaddedNode) {
+            TruffleString text = DoubleFormatter.toTruffleStringFixed(value, spec.precision, fromByteArrayNode);
+            appendPaddedNode.execute(builder, spec, text, spec.zeroPad && Double.isFinite(value));
+        }
+
+        @Specialization(guards = "spec.isFixed()")
+        static void doFixed(TruffleStringBuilder builder, FormatTemplate.Spec spec, long value,
+                @Shared @Cached TruffleString.FromByteArrayNode fromByteArrayNode,
+                @Shared @Cached AppendPaddedNode appendPaddedNode) {
+            TruffleString text = DoubleFormatter.toTruffleStringFixed(value, spec.precision, fromByteArrayNode);
+            appendPaddedNode.execute(builder, spec, text, spec.zeroPad);
+        }
+
+        @Specialization(guards = { "spec.isString()", "spec.width == 0" })
+        static void doString(TruffleStringBuilder builder, FormatTemplate.Spec spec, Object value,
+                @Shared @Cached LoxAppendNode appendNode) {
+            appendNode.execute(builder, value);
+        }
+
+        @Specialization(guards = { "spec.isString()", "spec.width > 0" })
+        static void doPaddedString(TruffleStringBuilder builder, FormatTemplate.Spec spec, Object value,
+                @Shared @Cached LoxAppendNode appendNode,
+                @Cached TruffleStringBuilder.ToStringNode toStringNode,
+                @Shared @Cached AppendPaddedNode appendPaddedNode) {
+            var valueBuilder = TruffleStringBuilder.create(StringBuiltIns.UTF_8);
+            appendNode.execute(valueBuilder, value);
+            appendPaddedNode.execute(builder, spec, toStringNode.execute(valueBuilder), false);
+        }
+
+        @Fallback
+        static void doError(TruffleStringBuilder builder, FormatTemplate.Spec spec, Object value,
+                @Bind Node node) {
+            throw conversionError(spec, value, node);
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static String toJavaString(BigInteger value) {
+            return value.toString();
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static LoxRuntimeError conversionError(FormatTemplate.Spec spec, Object value, Node node) {
+            return new LoxRuntimeError("Cannot format " + value + " with " + spec, node);
+        }
+    }
+
+    /**
+     * Appends a text padded with spaces to the width of a {@link FormatTemplate.Spec}. Zero padding
+     * goes after the sign of a number.
+     */
+    @GenerateInline(false)
+    @GenerateUncached
+    abstract static class AppendPaddedNode extends Node {
+
+        abstract void execute(TruffleStringBuilder builder, FormatTemplate.Spec spec, TruffleString text, boolean zeroPad);
+
+        @Specialization
+        static void doDefault(TruffleStringBuilder builder, FormatTemplate.Spec spec, TruffleString text, boolean zeroPad,
+                @Cached TruffleString.CodePointLengthNode lengthNode,
+                @Cached TruffleString.ReadByteNode readByteNode,
+                @Cached TruffleString.SubstringByteIndexNode substringNode,
+                @Cached TruffleStringBuilder.AppendStringNode appendStringNode,
+                @Cached TruffleStringBuilder.AppendCodePointNode appendCodePointNode) {
+            int padding = spec.width - lengthNode.execute(text, StringBuiltIns.UTF_8);
+            if (padding <= 0) {
+                appendStringNode.execute(builder, text);
+            } else if (spec.leftAlign) {
+                appendStringNode.execute(builder, text);
+                appendCodePointNode.execute(builder, ' ', padding);
+            } else if (!zeroPad) {
+                appendCodePointNode.execute(builder, ' ', padding);
+                appendStringNode.execute(builder, text);
+            } else if (readByteNode.execute(text, 0, StringBuiltIns.UTF_8) == '-') {
+                appendCodePointNode.execute(builder, '-');
+                appendCodePointNode.execute(builder, '0', padding);
+                int length = text.byteLength(StringBuiltIns.UTF_8);
+                appendStringNode.execute(builder, substringNode.execute(text, 1, length - 1, StringBuiltIns.UTF_8, true));
+            } else {
+                appendCodePointNode.execute(builder, '0', padding);
+                appendStringNode.execute(builder, text);
+            }
+        }
+    }
+}
@@ -2,14 +2,30 @@ package de.hpi.swa.lox.runtime.object;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.frame.Frame;
 import com.oracle.truffle.api.frame.MaterializedFrame;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.nodes.IndirectCallNode;
 import com.oracle.truffle.api.object.DynamicObjectLibrary;
+import com.oracle.truffle.api.strings.TruffleString;
 
+import de.hpi.swa.lox.runtime.LoxContext;
+
+@ExportLibrary(InteropLibrary.class)
 public class LoxFunction implements TruffleObject {
 
+    /**
+     * Frame arguments are laid out as {@code [function, receiver, userArguments...]}, so the receiver
+     * of a method call can be passed without allocating a bound function.
+     */
+    public static final int ARGUMENT_OFFSET = 2;
+
     public final String name;
     private final RootCallTarget callTarget;
     private final MaterializedFrame outerFrame;
@@ -35,14 +51,19 @@ public class LoxFunction implements TruffleObject {
     }
 
     public Object[] createArguments(Object[] userArguments) {
-        Object[] result = new Object[userArguments.length + 1];
-        System.arraycopy(userArguments, 0, result, 1, userArguments.length);
-        result[0] = this;
+        return createArguments(this, self, userArguments);
+    }
+
+    public static Object[] createArguments(LoxFunction function, LoxObject receiver, Object[] userArguments) {
+        Object[] result = new Object[userArguments.length + ARGUMENT_OFFSET];
+        System.arraycopy(userArguments, 0, result, ARGUMENT_OFFSET, userArguments.length);
+        result[0] = function;
+        result[1] = receiver;
         return result;
     }
 
     static Object getArgument(VirtualFrame frame, int index) {
-        return frame.getArguments()[index + 1];
+        return frame.getArguments()[index + ARGUMENT_OFFSET];
     }
 
     static LoxFunction getCurrentFunction(Frame frame) {
@@ -58,13 +79,51 @@ public class LoxFunction implements TruffleObject {
         return func.outerFrame;
     }
 
+    @ExportMessage
+    boolean isExecutable() {
+        return true;
+    }
+
+    /**
+     * Calls the function from the host. Like the end of a top-level evaluation, the return to the
+     * host flushes the buffered {@code print} output.
+     */
+    @ExportMessage
+    Object execute(Object[] arguments,
+            @Bind LoxContext context,
+            @Cached IndirectCallNode callNode) {
+        try {
+            return callNode.call(callTarget, createArguments(toLoxValues(arguments)));
+        } finally {
+            context.getOutput().flush();
+        }
+    }
+
+    /** Converts the host's numbers and strings to the types Lox uses for them. */
+    @CompilerDirectives.TruffleBoundary
+    private static Object[] toLoxValues(Object[] arguments) {
+        Object[] values = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            values[i] = switch (arguments[i]) {
+                case Byte b -> (long) b;
+                case Short s -> (long) s;
+                case Integer n -> (long) n;
+                case Float f -> (double) f;
+                case String s -> TruffleString.fromJavaStringUncached(s, TruffleString.Encoding.UTF_8);
+                case Character c -> TruffleString.fromCodePointUncached(c, TruffleString.Encoding.UTF_8);
+                default -> arguments[i];
+            };
+        }
+        return values;
+    }
+
     @CompilerDirectives.TruffleBoundary
     public String toString() {
         return self == null ? "Function " + name : self.klass.name + "#" + name;
     }
 
     public static LoxObject getThis(VirtualFrame frame) {
-        return getCurrentFunction(frame).self;
+        return (LoxObject) frame.getArguments()[1];
     }
 
     public static LoxFunction lookupMethod(LoxObject obj, String name, DynamicObjectLibrary klassDylib) {
@@ -74,4 +133,11 @@ public class LoxFunction implements TruffleObject {
         }
         return null;
     }
+
+    /**
+     * Looks up the unbound {@code init} method of a class, or {@code null} if the class has none.
+     */
+    public static LoxFunction lookupInitializer(LoxClass klass, DynamicObjectLibrary klassDylib) {
+        return (LoxFunction) klassDylib.getOrDefault(klass, "init", null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+
+/**
+ * A fixed-length array of longs, created zero-initialized with {@code Int64Array(n)}. Unlike
+ * {@link LoxArray} it never changes its representation; writing anything but a long is an error.
+ */
+public final class LoxInt64Array {
+    private final long[] elements;
+
+    public LoxInt64Array(int length) {
+        this.elements = new long[length];
+    }
+
+    public int getSize() {
+        return elements.length;
+    }
+
+    public boolean inBounds(long index) {
+        return index >= 0 && index < elements.length;
+    }
+
+    public long get(int index) {
+        return elements[index];
+    }
+
+    public void set(int index, long value) {
+        elements[index] = value;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    @Override
+    public String toString() {
+        return Arrays.toString(elements);
+    }
+}
@@ -0,0 +1,418 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.util.Objects;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * A Lox hash map, created with {@code Map()} and indexed like an array with {@code m[key]}. Entries
+ * live in an open-addressing table with linear probing. The keys are kept in one of several storage
+ * strategies, selected by the keys inserted so far:
+ * <ul>
+ * <li>{@code null}: empty, no key was inserted yet</li>
+ * <li>{@code long[]}: all keys are longs and are stored unboxed</li>
+ * <li>{@code TruffleString[]}: all keys are strings, their hashes are kept in {@link #hashes} so
+ * probing only compares strings with a matching hash</li>
+ * <li>{@code Object[]}: any mix of keys, compared like {@code ==}</li>
+ * </ul>
+ * Keys follow {@code ==}: doubles with an integral value are stored as longs, so {@code m[1]} and
+ * {@code m[1.0]} are the same entry, and a NaN key is never found again.
+ * A slot is empty if its value is {@code null}. Deleted entries leave a {@link #TOMBSTONE} that
+ * lookups skip and insertions reuse.
+ */
+public final class LoxMap {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final Object TOMBSTONE = new Object();
+
+    private Object keys;
+    private int[] hashes;
+    private Object[] values;
+    /** The number of entries. */
+    private int count = 0;
+    /** The number of slots that are not empty, including tombstones. */
+    private int used = 0;
+
+    public boolean isLongKeys() {
+        return keys instanceof long[];
+    }
+
+    public boolean isStringKeys() {
+        return keys instanceof TruffleString[];
+    }
+
+    /** Whether the long-key operations apply: the map is empty or has long keys. */
+    public boolean acceptsLongKeys() {
+        return keys == null || isLongKeys();
+    }
+
+    /** Whether the string-key operations apply: the map is empty or has string keys. */
+    public boolean acceptsStringKeys() {
+        return keys == null || isStringKeys();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private static int mix(long hash) {
+        long h = hash * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private static int genericHash(Object key) {
+        return mix(Objects.hashCode(key));
+    }
+
+    private static int stringHash(TruffleString key) {
+        return TruffleString.HashCodeNode.getUncached().execute(key, TruffleString.Encoding.UTF_8);
+    }
+
+    private static boolean isLive(Object value) {
+        return value != null && value != TOMBSTONE;
+    }
+
+    /*
+     * Lookups. Each returns the index of the slot holding the key, or -1.
+     */
+
+    private int findLong(long key) {
+        if (keys == null) {
+            return -1;
+        }
+        long[] longKeys = (long[]) keys;
+        int mask = values.length - 1;
+        for (int i = mix(key) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (values[i] != TOMBSTONE && longKeys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int findString(TruffleString key, int hash, TruffleString.EqualNode equalNode) {
+        if (keys == null) {
+            return -1;
+        }
+        TruffleString[] stringKeys = (TruffleString[]) keys;
+        int mask = values.length - 1;
+        for (int i = mix(hash) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (values[i] != TOMBSTONE && hashes[i] == hash
+                    && equalNode.execute(stringKeys[i], key, TruffleString.Encoding.UTF_8)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private int findGeneric(Object key) {
+        Object[] objectKeys = (Object[]) keys;
+        int mask = values.length - 1;
+        for (int i = genericHash(key) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (values[i] != TOMBSTONE && LoxArray.isEqual(objectKeys[i], key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the long a double with an integral value is equal to, so that it finds the same entry.
+     */
+    private static Object normalize(Object key) {
+        if (key instanceof Double d && d == (long) d.doubleValue() && d != 0x1p63) {
+            return (long) d.doubleValue();
+        }
+        return key;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private int find(Object rawKey) {
+        Object key = normalize(rawKey);
+        return switch (keys) {
+            case long[] longs -> key instanceof Long l ? findLong(l) : -1;
+            case TruffleString[] strings -> key instanceof TruffleString s
+                    ? findString(s, stringHash(s), TruffleString.EqualNode.getUncached())
+                    : -1;
+            case Object[] objects -> findGeneric(key);
+            case null, default -> -1;
+        };
+    }
+
+    private Object valueAt(int slot) {
+        return slot < 0 ? Nil.INSTANCE : values[slot];
+    }
+
+    /**
+     * Returns the value for a long key in an empty map or one with long keys, or nil.
+     */
+    public Object getLong(long key) {
+        return valueAt(findLong(key));
+    }
+
+    /**
+     * Returns the value for a string key in an empty map or one with string keys, or nil.
+     */
+    public Object getString(TruffleString key, int hash, TruffleString.EqualNode equalNode) {
+        return valueAt(findString(key, hash, equalNode));
+    }
+
+    public Object get(Object key) {
+        return valueAt(find(key));
+    }
+
+    /**
+     * Returns whether an empty map or one with long keys has an entry for {@code key}.
+     */
+    public boolean hasLong(long key) {
+        return findLong(key) >= 0;
+    }
+
+    public boolean has(Object key) {
+        return find(key) >= 0;
+    }
+
+    /*
+     * Insertions. The specialized ones fall back to the generic one for other key strategies.
+     */
+
+    /**
+     * Returns the slot where a key that is not in the map should be inserted: the first tombstone
+     * on its probe sequence, or the empty slot ending it.
+     */
+    private int insertionSlot(int hash) {
+        int mask = values.length - 1;
+        int i = hash & mask;
+        while (values[i] != null && values[i] != TOMBSTONE) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void occupy(int slot, Object value) {
+        if (values[slot] == null) {
+            used++;
+        }
+        values[slot] = value;
+        count++;
+    }
+
+    private boolean needsResize() {
+        return (used + 1) * 4 > values.length * 3;
+    }
+
+    public void putLong(long key, Object value) {
+        if (keys == null) {
+            keys = new long[INITIAL_CAPACITY];
+            values = new Object[INITIAL_CAPACITY];
+        } else if (!isLongKeys()) {
+            put(key, value);
+            return;
+        }
+        int slot = findLong(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        if (needsResize()) {
+            resize();
+        }
+        slot = insertionSlot(mix(key));
+        ((long[]) keys)[slot] = key;
+        occupy(slot, value);
+    }
+
+    public void putString(TruffleString key, int hash, TruffleString.EqualNode equalNode, Object value) {
+        if (keys == null) {
+            keys = new TruffleString[INITIAL_CAPACITY];
+            hashes = new int[INITIAL_CAPACITY];
+            values = new Object[INITIAL_CAPACITY];
+        } else if (!isStringKeys()) {
+            put(key, value);
+            return;
+        }
+        int slot = findString(key, hash, equalNode);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        if (needsResize()) {
+            resize();
+        }
+        slot = insertionSlot(mix(hash));
+        ((TruffleString[]) keys)[slot] = key;
+        hashes[slot] = hash;
+        occupy(slot, value);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    public void put(Object rawKey, Object value) {
+        Object key = normalize(rawKey);
+        if (keys == null) {
+            if (key instanceof Long l) {
+                putLong(l, value);
+                return;
+            } else if (key instanceof TruffleString s) {
+                putString(s, stringHash(s), TruffleString.EqualNode.getUncached(), value);
+                return;
+            }
+            keys = new Object[INITIAL_CAPACITY];
+            values = new Object[INITIAL_CAPACITY];
+        } else if (isLongKeys() && key instanceof Long l) {
+            putLong(l, value);
+            return;
+        } else if (isStringKeys() && key instanceof TruffleString s) {
+            putString(s, stringHash(s), TruffleString.EqualNode.getUncached(), value);
+            return;
+        } else if (keys.getClass() != Object[].class) {
+            generalize();
+        }
+        int slot = findGeneric(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        if (needsResize()) {
+            resize();
+        }
+        slot = insertionSlot(genericHash(key));
+        ((Object[]) keys)[slot] = key;
+        occupy(slot, value);
+    }
+
+    /**
+     * Removes the entry for {@code key}. Returns whether there was one.
+     */
+    @CompilerDirectives.TruffleBoundary
+    public boolean delete(Object key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        values[slot] = TOMBSTONE;
+        count--;
+        return true;
+    }
+
+    private Object keyAt(int slot) {
+        return switch (keys) {
+            case long[] longs -> longs[slot];
+            default -> ((Object[]) keys)[slot];
+        };
+    }
+
+    /**
+     * Returns the keys in table order.
+     */
+    @CompilerDirectives.TruffleBoundary
+    public LoxArray keys() {
+        Object[] result = new Object[count];
+        int j = 0;
+        for (int i = 0; values != null && i < values.length; i++) {
+            if (isLive(values[i])) {
+                result[j++] = keyAt(i);
+            }
+        }
+        return new LoxArray(result);
+    }
+
+    /**
+     * Switches to {@code Object[]} keys, boxing the current ones.
+     */
+    @CompilerDirectives.TruffleBoundary
+    private void generalize() {
+        Object[] oldValues = values;
+        Object[] oldKeys = new Object[oldValues.length];
+        for (int i = 0; i < oldValues.length; i++) {
+            if (isLive(oldValues[i])) {
+                oldKeys[i] = keyAt(i);
+            }
+        }
+        rehash(oldKeys, oldValues, oldValues.length);
+    }
+
+    /**
+     * Rebuilds the table without tombstones, doubling its capacity if it is more than half full.
+     */
+    @CompilerDirectives.TruffleBoundary
+    private void resize() {
+        int capacity = count * 2 >= values.length ? values.length * 2 : values.length;
+        switch (keys) {
+            case long[] oldKeys -> {
+                Object[] oldValues = values;
+                keys = new long[capacity];
+                values = new Object[capacity];
+                count = 0;
+                used = 0;
+                for (int i = 0; i < oldValues.length; i++) {
+                    if (isLive(oldValues[i])) {
+                        putLong(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+            case TruffleString[] oldKeys -> {
+                Object[] oldValues = values;
+                int[] oldHashes = hashes;
+                keys = new TruffleString[capacity];
+                hashes = new int[capacity];
+                values = new Object[capacity];
+                count = 0;
+                used = 0;
+                for (int i = 0; i < oldValues.length; i++) {
+                    if (isLive(oldValues[i])) {
+                        int slot = insertionSlot(mix(oldHashes[i]));
+                        ((TruffleString[]) keys)[slot] = oldKeys[i];
+                        hashes[slot] = oldHashes[i];
+                        occupy(slot, oldValues[i]);
+                    }
+                }
+            }
+            default -> rehash((Object[]) keys, values, capacity);
+        }
+    }
+
+    private void rehash(Object[] oldKeys, Object[] oldValues, int capacity) {
+        keys = new Object[capacity];
+        hashes = null;
+        values = new Object[capacity];
+        count = 0;
+        used = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (isLive(oldValues[i])) {
+                int slot = insertionSlot(genericHash(oldKeys[i]));
+                ((Object[]) keys)[slot] = oldKeys[i];
+                occupy(slot, oldValues[i]);
+            }
+        }
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{");
+        boolean first = true;
+        for (int i = 0; values != null && i < values.length; i++) {
+            if (isLive(values[i])) {
+                if (!first) {
+                    sb.append(", ");
+                }
+                first = false;
+                appendElement(sb, keyAt(i));
+                sb.append(": ");
+                appendElement(sb, values[i]);
+            }
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+    private static void appendElement(StringBuilder sb, Object element) {
+        if (element instanceof TruffleString) {
+            sb.append("\"").append(element).append("\"");
+        } else {
+            sb.append(element);
+        }
+    }
+}
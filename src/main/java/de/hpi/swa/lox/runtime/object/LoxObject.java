@@ -1,18 +1,66 @@
-
 package de.hpi.swa.lox.runtime.object;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.object.DynamicObject;
+import com.oracle.truffle.api.object.DynamicObjectLibrary;
 
 public final class LoxObject extends DynamicObject {
     public final LoxClass klass;
+    private int shapeTransitions = 0;
+    /**
+     * Non-null once the object was demoted to dictionary mode. From then on, all properties live in
+     * this map and the object keeps the root shape of its class, so it no longer adds shapes to the
+     * inline caches of well-behaved objects.
+     */
+    private Map<String, Object> dictionary;
 
     public LoxObject(LoxClass klass) {
         super(klass.instanceShape);
         this.klass = klass;
     }
 
+    public boolean isDictionaryMode() {
+        return dictionary != null;
+    }
+
+    /**
+     * Records a shape transition caused by a property write and demotes the object to dictionary mode
+     * once it has gone through more than {@code threshold} transitions.
+     */
+    public void recordShapeTransition(int threshold) {
+        if (++shapeTransitions > threshold) {
+            demoteToDictionary();
+        }
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private void demoteToDictionary() {
+        var dylib = DynamicObjectLibrary.getUncached();
+        var properties = new HashMap<String, Object>();
+        for (Object key : dylib.getKeyArray(this)) {
+            if (key != LoxClass.CLASS_KEY && key instanceof String name) {
+                properties.put(name, dylib.getOrDefault(this, name, Nil.INSTANCE));
+            }
+        }
+        dylib.resetShape(this, klass.instanceShape);
+        dictionary = properties;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    public Object getDictionaryProperty(String name) {
+        return dictionary.getOrDefault(name, Nil.INSTANCE);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    public void putDictionaryProperty(String name, Object value) {
+        dictionary.put(name, value);
+    }
+
     @Override
     public String toString() {
         return klass.name;
     }
-}
\ No newline at end of file
+}
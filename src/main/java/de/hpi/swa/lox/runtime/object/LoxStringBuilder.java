@@ -0,0 +1,23 @@
+package de.hpi.swa.lox.runtime.object;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+
+/**
+ * A mutable string buffer, created with {@code StringBuilder()}. Values are appended with
+ * {@code append(builder, value)} and the result is read with {@code toString(builder)}.
+ */
+public final class LoxStringBuilder {
+    private final TruffleStringBuilder builder = TruffleStringBuilder.create(TruffleString.Encoding.UTF_8);
+
+    public TruffleStringBuilder getBuilder() {
+        return builder;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    @Override
+    public String toString() {
+        return builder.toStringUncached().toJavaStringUncached();
+    }
+}
@@ -0,0 +1,44 @@
+package de.hpi.swa.lox.runtime.object;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.strings.TruffleString;
+
+/**
+ * An instance of a {@link LoxStructType}. Its fields live in a plain array laid out by the type, so
+ * a property access site only has to check the type to know the slot of a field.
+ */
+public final class LoxStruct {
+    public final LoxStructType type;
+    private final Object[] fields;
+
+    LoxStruct(LoxStructType type, Object[] fields) {
+        this.type = type;
+        this.fields = fields;
+    }
+
+    public Object getField(int index) {
+        return fields[index];
+    }
+
+    public void setField(int index, Object value) {
+        fields[index] = value;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(type.name).append("(");
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(type.getFieldName(i)).append(": ");
+            if (fields[i] instanceof TruffleString) {
+                sb.append("\"").append(fields[i]).append("\"");
+            } else {
+                sb.append(fields[i]);
+            }
+        }
+        return sb.append(")").toString();
+    }
+}
@@ -0,0 +1,72 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.nodes.Node;
+
+import de.hpi.swa.lox.error.LoxRuntimeError;
+
+/**
+ * A type declared with {@code struct Name { field, ... }}. Its instances are {@link LoxStruct}s with
+ * one slot per declared field, in declaration order. Calling the type creates an instance and
+ * assigns the arguments to the fields in order; missing arguments leave the field nil.
+ */
+public final class LoxStructType {
+    public final String name;
+    private final String[] fieldNames;
+
+    public LoxStructType(String name, String[] fieldNames) {
+        this.name = name;
+        this.fieldNames = fieldNames;
+    }
+
+    public int getFieldCount() {
+        return fieldNames.length;
+    }
+
+    String getFieldName(int index) {
+        return fieldNames[index];
+    }
+
+    /**
+     * Returns the slot index of the field {@code name}, or -1 if the struct has no such field.
+     */
+    public int findField(String name) {
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (fieldNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot index of the field {@code name}, or throws if the struct has no such field.
+     */
+    public int getFieldIndex(String name, Node node) {
+        int index = findField(name);
+        if (index < 0) {
+            throw undefinedField(name, node);
+        }
+        return index;
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private LoxRuntimeError undefinedField(String field, Node node) {
+        return new LoxRuntimeError("Undefined field '" + field + "' for struct " + name, node);
+    }
+
+    public LoxStruct instantiate(Object[] arguments) {
+        Object[] fields = new Object[fieldNames.length];
+        int count = Math.min(arguments.length, fields.length);
+        System.arraycopy(arguments, 0, fields, 0, count);
+        Arrays.fill(fields, count, fields.length, Nil.INSTANCE);
+        return new LoxStruct(this, fields);
+    }
+
+    @Override
+    public String toString() {
+        return "Struct " + name;
+    }
+}
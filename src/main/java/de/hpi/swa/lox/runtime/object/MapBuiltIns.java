@@ -0,0 +1,78 @@
+package de.hpi.swa.lox.runtime.object;
+
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+
+/**
+ * Built-in functions for {@link LoxMap}s. Entries are read and written by indexing, {@code m[key]};
+ * these built-ins cover the remaining operations.
+ */
+public final class MapBuiltIns {
+
+    private MapBuiltIns() {
+    }
+
+    public static void install(GlobalObject globals) {
+        ArrayBuiltIns.define(globals, "Map", MapBuiltInsFactory.NewMapBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "has", MapBuiltInsFactory.HasBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "delete", MapBuiltInsFactory.DeleteBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "keys", MapBuiltInsFactory.KeysBuiltInNodeGen.create());
+    }
+
+    /** {@code Map()} creates an empty map. */
+    public abstract static class NewMapBuiltInNode extends BuiltInNode.Unary {
+        @Specialization
+        static Object doDefault(Object unused) {
+            return new LoxMap();
+        }
+    }
+
+    /** {@code has(map, key)} returns whether the map has an entry for the key. */
+    public abstract static class HasBuiltInNode extends BuiltInNode.Binary {
+        @Specialization(guards = "map.acceptsLongKeys()")
+        static boolean doLong(LoxMap map, long key) {
+            return map.hasLong(key);
+        }
+
+        @Specialization(replaces = "doLong")
+        static boolean doGeneric(LoxMap map, Object key) {
+            return map.has(key);
+        }
+
+        @Fallback
+        static Object doError(Object map, Object key,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "has", map, key);
+        }
+    }
+
+    /** {@code delete(map, key)} removes the entry for the key and returns whether there was one. */
+    public abstract static class DeleteBuiltInNode extends BuiltInNode.Binary {
+        @Specialization
+        static boolean doDefault(LoxMap map, Object key) {
+            return map.delete(key);
+        }
+
+        @Fallback
+        static Object doError(Object map, Object key,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "delete", map, key);
+        }
+    }
+
+    /** {@code keys(map)} returns an array of the keys of the map. */
+    public abstract static class KeysBuiltInNode extends BuiltInNode.Unary {
+        @Specialization
+        static Object doDefault(LoxMap map) {
+            return map.keys();
+        }
+
+        @Fallback
+        static Object doError(Object map,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "keys", map);
+        }
+    }
+}
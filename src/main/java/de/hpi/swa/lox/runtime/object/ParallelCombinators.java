@@ -0,0 +1,311 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.DirectCallNode;
+import com.oracle.truffle.api.nodes.IndirectCallNode;
+import com.oracle.truffle.api.nodes.LoopNode;
+import com.oracle.truffle.api.nodes.RootNode;
+
+import de.hpi.swa.lox.error.LoxRuntimeError;
+import de.hpi.swa.lox.runtime.LoxContext;
+
+/**
+ * Parallel variants of the array combinators: {@code parallelMap(array, fn)},
+ * {@code parallelReduce(array, fn, initial)} and {@code parallelForEach(array, fn)}. The array is
+ * split into one chunk per worker of the context's pool of Truffle threads, see
+ * {@link LoxContext#getWorkerPool()}. Each worker runs its chunk in its own {@link ChunkRootNode},
+ * whose direct call node lets the callback be inlined into the compiled chunk loop.
+ * <p>
+ * Arrays, maps and objects are not synchronized, so callbacks must be pure: they may read shared
+ * values and create new ones, but must not write to arrays, maps, objects or globals that other
+ * callbacks or the caller can see. The exceptions are {@code print}, and the elements of typed
+ * arrays and buffers, whose storage never changes representation; {@code parallelForEach} may write
+ * disjoint elements of those. The array itself is copied before the workers start, so the
+ * iteration does not depend on it.
+ * <p>
+ * Arrays with fewer than {@link #MIN_CHUNK_SIZE} elements per worker, calls from within a callback
+ * and contexts that may not create threads are processed on the calling thread. See
+ * {@link ParallelReduceBuiltInNode} for what {@code parallelReduce} requires of its callback.
+ */
+public final class ParallelCombinators {
+    static final int MIN_CHUNK_SIZE = 256;
+
+    private ParallelCombinators() {
+    }
+
+    public static void install(GlobalObject globals) {
+        ArrayBuiltIns.define(globals, "parallelMap", new ParallelMapBuiltInNode());
+        ArrayBuiltIns.define(globals, "parallelReduce", new ParallelReduceBuiltInNode());
+        ArrayBuiltIns.define(globals, "parallelForEach", new ParallelForEachBuiltInNode());
+    }
+
+    @FunctionalInterface
+    interface ChunkTask<T> {
+        T run(CallTarget chunk, int from, int to);
+    }
+
+    abstract static class ParallelBuiltInNode extends BuiltInNode {
+        private final String name;
+        /** The callback the chunk roots call directly, or null once they call indirectly. */
+        private RootCallTarget cachedCallbackTarget;
+        /** One chunk root per worker, created for the first callback. */
+        private CallTarget[] chunkTargets;
+
+        ParallelBuiltInNode(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public final Object execute(VirtualFrame frame) {
+            Object array = getArgument(frame, 0);
+            Object callback = getArgument(frame, 1);
+            if (!(array instanceof LoxArray) || !(callback instanceof LoxFunction)) {
+                throw argumentError(array, callback);
+            }
+            return run(LoxContext.get(this), snapshot((LoxArray) array), (LoxFunction) callback, getArgument(frame, 2));
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static Object[] snapshot(LoxArray array) {
+            return array.toObjectArray();
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private LoxRuntimeError argumentError(Object array, Object callback) {
+            return new LoxRuntimeError("Expected an array and a function for " + name + ", got " + array + " and "
+                    + callback, this);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        abstract Object run(LoxContext context, Object[] elements, LoxFunction callback, Object extra);
+
+        abstract ChunkRootNode createChunkRoot(RootCallTarget callbackTarget);
+
+        /**
+         * Returns the chunk roots for {@code callback}. They call the first callback seen here
+         * directly; once another one shows up, they are replaced by roots that call indirectly.
+         */
+        final synchronized CallTarget[] getChunkTargets(LoxContext context, LoxFunction callback) {
+            RootCallTarget target = callback.getCallTarget();
+            if (chunkTargets == null || cachedCallbackTarget != null && cachedCallbackTarget != target) {
+                cachedCallbackTarget = chunkTargets == null ? target : null;
+                chunkTargets = new CallTarget[context.getParallelism()];
+                for (int i = 0; i < chunkTargets.length; i++) {
+                    chunkTargets[i] = createChunkRoot(cachedCallbackTarget).getCallTarget();
+                }
+            }
+            return chunkTargets;
+        }
+
+        /**
+         * Runs {@code task} for consecutive chunks of {@code [0, size)}, each with its own chunk
+         * root, and returns the results in chunk order. Errors thrown by a callback are rethrown on
+         * the calling thread.
+         */
+        @CompilerDirectives.TruffleBoundary
+        final <T> List<T> runChunks(LoxContext context, LoxFunction callback, int size, ChunkTask<T> task) {
+            CallTarget[] chunkRoots = getChunkTargets(context, callback);
+            ExecutorService pool = context.getWorkerPool();
+            int chunks = pool == null || context.isWorkerThread(Thread.currentThread()) ? 1
+                    : Math.min(chunkRoots.length, size / MIN_CHUNK_SIZE);
+            if (chunks <= 1) {
+                return size == 0 ? List.of() : Collections.singletonList(task.run(chunkRoots[0], 0, size));
+            }
+            List<Callable<T>> tasks = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                CallTarget chunkRoot = chunkRoots[i];
+                int from = (int) ((long) size * i / chunks);
+                int to = (int) ((long) size * (i + 1) / chunks);
+                tasks.add(() -> task.run(chunkRoot, from, to));
+            }
+            List<T> results = new ArrayList<>(chunks);
+            try {
+                for (Future<T> future : pool.invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                } else if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new LoxRuntimeError(name + " failed: " + e.getCause(), this);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LoxRuntimeError(name + " was interrupted", this);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Calls the callback for the elements {@code [from, to)} of a snapshot. Its arguments are the
+     * callback, the snapshot, {@code from}, {@code to} and a value specific to the combinator.
+     */
+    abstract static class ChunkRootNode extends RootNode {
+        @Child private DirectCallNode directCallNode;
+        @Child private IndirectCallNode indirectCallNode;
+
+        /**
+         * Creates a chunk root that calls {@code callbackTarget} directly, or any callback
+         * indirectly if it is null.
+         */
+        ChunkRootNode(RootCallTarget callbackTarget) {
+            super(null);
+            if (callbackTarget != null) {
+                this.directCallNode = DirectCallNode.create(callbackTarget);
+            } else {
+                this.indirectCallNode = IndirectCallNode.create();
+            }
+        }
+
+        @Override
+        public final Object execute(VirtualFrame frame) {
+            Object[] arguments = frame.getArguments();
+            int from = (int) arguments[2];
+            int to = (int) arguments[3];
+            Object result = processChunk((LoxFunction) arguments[0], (Object[]) arguments[1], from, to, arguments[4]);
+            LoopNode.reportLoopCount(this, to - from);
+            return result;
+        }
+
+        abstract Object processChunk(LoxFunction callback, Object[] elements, int from, int to, Object extra);
+
+        final Object call(LoxFunction callback, Object... arguments) {
+            Object[] frameArguments = callback.createArguments(arguments);
+            if (directCallNode != null) {
+                return directCallNode.call(frameArguments);
+            }
+            return indirectCallNode.call(callback.getCallTarget(), frameArguments);
+        }
+    }
+
+    static final class ParallelMapBuiltInNode extends ParallelBuiltInNode {
+        ParallelMapBuiltInNode() {
+            super("parallelMap");
+        }
+
+        @Override
+        @CompilerDirectives.TruffleBoundary
+        Object run(LoxContext context, Object[] elements, LoxFunction callback, Object extra) {
+            // Every chunk writes a disjoint range, so the plain array needs no synchronization.
+            Object[] result = new Object[elements.length];
+            runChunks(context, callback, elements.length, (chunk, from, to) -> chunk.call(callback, elements, from, to, result));
+            return new LoxArray(result);
+        }
+
+        @Override
+        ChunkRootNode createChunkRoot(RootCallTarget callbackTarget) {
+            return new Chunk(callbackTarget);
+        }
+
+        private static final class Chunk extends ChunkRootNode {
+            Chunk(RootCallTarget callbackTarget) {
+                super(callbackTarget);
+            }
+
+            @Override
+            Object processChunk(LoxFunction callback, Object[] elements, int from, int to, Object extra) {
+                Object[] result = (Object[]) extra;
+                for (int i = from; i < to; i++) {
+                    result[i] = call(callback, elements[i], (long) i);
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * {@code parallelReduce(array, fn, initial)}. The first chunk starts from {@code initial}, every
+     * other chunk from its first element, and the chunk results are then combined from left to
+     * right with {@code fn}. On one chunk this is exactly {@code reduce}. On several, the result is
+     * only the same if {@code fn} is associative and also accepts its own results as elements, as
+     * {@code (a, b) => a + b} does; {@code (n, x) => n + 1}, which counts, does not.
+     */
+    static final class ParallelReduceBuiltInNode extends ParallelBuiltInNode {
+        ParallelReduceBuiltInNode() {
+            super("parallelReduce");
+        }
+
+        @Override
+        @CompilerDirectives.TruffleBoundary
+        Object run(LoxContext context, Object[] elements, LoxFunction callback, Object initial) {
+            List<Object> partials = runChunks(context, callback, elements.length, (chunk, from, to) -> from == 0
+                    ? chunk.call(callback, elements, from, to, initial)
+                    : chunk.call(callback, elements, from + 1, to, elements[from]));
+            if (partials.isEmpty()) {
+                return initial;
+            }
+            // The partial results are few, so they are combined with the first chunk root.
+            Object[] partialArray = partials.toArray();
+            return getChunkTargets(context, callback)[0].call(callback, partialArray, 1, partialArray.length, partialArray[0]);
+        }
+
+        @Override
+        ChunkRootNode createChunkRoot(RootCallTarget callbackTarget) {
+            return new Chunk(callbackTarget);
+        }
+
+        private static final class Chunk extends ChunkRootNode {
+            Chunk(RootCallTarget callbackTarget) {
+                super(callbackTarget);
+            }
+
+            @Override
+            Object processChunk(LoxFunction callback, Object[] elements, int from, int to, Object accumulator) {
+                Object result = accumulator;
+                for (int i = from; i < to; i++) {
+                    result = call(callback, result, elements[i]);
+                }
+                return result;
+            }
+        }
+    }
+
+    static final class ParallelForEachBuiltInNode extends ParallelBuiltInNode {
+        ParallelForEachBuiltInNode() {
+            super("parallelForEach");
+        }
+
+        @Override
+        @CompilerDirectives.TruffleBoundary
+        Object run(LoxContext context, Object[] elements, LoxFunction callback, Object extra) {
+            runChunks(context, callback, elements.length, (chunk, from, to) -> chunk.call(callback, elements, from, to, null));
+            return Nil.INSTANCE;
+        }
+
+        @Override
+        ChunkRootNode createChunkRoot(RootCallTarget callbackTarget) {
+            return new Chunk(callbackTarget);
+        }
+
+        private static final class Chunk extends ChunkRootNode {
+            Chunk(RootCallTarget callbackTarget) {
+                super(callbackTarget);
+            }
+
+            @Override
+            Object processChunk(LoxFunction callback, Object[] elements, int from, int to, Object extra) {
+                for (int i = from; i < to; i++) {
+                    call(callback, elements[i], (long) i);
+                }
+                return null;
+            }
+        }
+    }
+}
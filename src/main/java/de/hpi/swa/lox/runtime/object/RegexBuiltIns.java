@@ -0,0 +1,259 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.GenerateInline;
+import com.oracle.truffle.api.dsl.GenerateUncached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+
+import de.hpi.swa.lox.error.LoxRuntimeError;
+
+/**
+ * Built-in functions for regular expressions in {@link Pattern} syntax. The string comes first, as
+ * in the other string built-ins: {@code test(string, pattern)}.
+ * <p>
+ * Patterns are compiled once per call site and pattern string, see {@link PatternNode}. ASCII
+ * strings are matched directly over their bytes through an {@link AsciiCharSequence}, and groups
+ * are returned as lazy substrings of them, so no Java string is created for the subject.
+ */
+public final class RegexBuiltIns {
+    private RegexBuiltIns() {
+    }
+
+    public static void install(GlobalObject globals) {
+        ArrayBuiltIns.define(globals, "test", RegexBuiltInsFactory.TestBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "match", RegexBuiltInsFactory.MatchBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "matchAll", RegexBuiltInsFactory.MatchAllBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "replace", RegexBuiltInsFactory.ReplaceBuiltInNodeGen.create());
+    }
+
+    /**
+     * Compiles a pattern string. Up to three patterns are cached by identity, which string
+     * interning makes hit for every literal pattern; other patterns are compiled on each call.
+     */
+    @GenerateInline(false)
+    @GenerateUncached
+    abstract static class PatternNode extends Node {
+
+        abstract Pattern execute(TruffleString pattern);
+
+        @Specialization(guards = "pattern == cachedPattern", limit = "3")
+        static Pattern doCached(TruffleString pattern,
+                @Bind Node node,
+                @Cached("pattern") TruffleString cachedPattern,
+                @Cached("compile(cachedPattern, node)") Pattern compiled) {
+            return compiled;
+        }
+
+        @Specialization(replaces = "doCached")
+        static Pattern doGeneric(TruffleString pattern,
+                @Bind Node node) {
+            return compile(pattern, node);
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        static Pattern compile(TruffleString pattern, Node node) {
+            try {
+                return Pattern.compile(pattern.toJavaStringUncached());
+            } catch (PatternSyntaxException e) {
+                throw new LoxRuntimeError("Invalid regular expression: " + e.getDescription() + " in '" + e.getPattern() + "'", node);
+            }
+        }
+    }
+
+    /**
+     * Returns the characters a string is matched over: its bytes if it is ASCII, a Java string
+     * otherwise.
+     */
+    @GenerateInline(false)
+    @GenerateUncached
+    abstract static class SubjectNode extends Node {
+
+        abstract CharSequence execute(TruffleString string);
+
+        @Specialization
+        static CharSequence doDefault(TruffleString string,
+                @Cached TruffleString.GetCodeRangeNode getCodeRangeNode,
+                @Cached TruffleString.GetInternalByteArrayNode getBytesNode,
+                @Cached TruffleString.ToJavaStringNode toJavaStringNode) {
+            if (getCodeRangeNode.execute(string, StringBuiltIns.UTF_8) == TruffleString.CodeRange.ASCII) {
+                var bytes = getBytesNode.execute(string, StringBuiltIns.UTF_8);
+                return new AsciiCharSequence(bytes.getArray(), bytes.getOffset(), bytes.getLength());
+            }
+            return toJavaStringNode.execute(string);
+        }
+    }
+
+    /** A view of ASCII bytes as characters. */
+    static final class AsciiCharSequence implements CharSequence {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        AsciiCharSequence(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) bytes[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new AsciiCharSequence(bytes, offset + start, end - start);
+        }
+
+        @Override
+        @CompilerDirectives.TruffleBoundary
+        public String toString() {
+            return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * The text between two character indices of {@code subject}, which was created from
+     * {@code string} by {@link SubjectNode}.
+     */
+    private static TruffleString substring(TruffleString string, CharSequence subject, int start, int end) {
+        if (subject instanceof AsciiCharSequence) {
+            return string.substringByteIndexUncached(start, end - start, StringBuiltIns.UTF_8, true);
+        }
+        return TruffleString.fromJavaStringUncached(subject.subSequence(start, end).toString(), StringBuiltIns.UTF_8);
+    }
+
+    /** The match and its groups; groups that did not participate are nil. */
+    private static LoxArray groups(Matcher matcher, TruffleString string, CharSequence subject) {
+        Object[] groups = new Object[matcher.groupCount() + 1];
+        for (int i = 0; i < groups.length; i++) {
+            int start = matcher.start(i);
+            groups[i] = start < 0 ? Nil.INSTANCE : substring(string, subject, start, matcher.end(i));
+        }
+        return new LoxArray(groups);
+    }
+
+    /** {@code test(string, pattern)} returns whether the pattern matches anywhere in the string. */
+    public abstract static class TestBuiltInNode extends BuiltInNode.Binary {
+        @Specialization
+        static boolean doDefault(TruffleString string, TruffleString pattern,
+                @Cached PatternNode patternNode,
+                @Cached SubjectNode subjectNode) {
+            return find(patternNode.execute(pattern), subjectNode.execute(string));
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static boolean find(Pattern pattern, CharSequence subject) {
+            return pattern.matcher(subject).find();
+        }
+
+        @Fallback
+        static Object doError(Object string, Object pattern,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "test", string, pattern);
+        }
+    }
+
+    /**
+     * {@code match(string, pattern)} returns the first match as an array of the matched text and
+     * its groups, or nil if there is none.
+     */
+    public abstract static class MatchBuiltInNode extends BuiltInNode.Binary {
+        @Specialization
+        static Object doDefault(TruffleString string, TruffleString pattern,
+                @Cached PatternNode patternNode,
+                @Cached SubjectNode subjectNode) {
+            return match(patternNode.execute(pattern), string, subjectNode.execute(string));
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static Object match(Pattern pattern, TruffleString string, CharSequence subject) {
+            Matcher matcher = pattern.matcher(subject);
+            return matcher.find() ? groups(matcher, string, subject) : Nil.INSTANCE;
+        }
+
+        @Fallback
+        static Object doError(Object string, Object pattern,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "match", string, pattern);
+        }
+    }
+
+    /**
+     * {@code matchAll(string, pattern)} returns an array of all non-overlapping matches, each in the
+     * form {@code match} returns.
+     */
+    public abstract static class MatchAllBuiltInNode extends BuiltInNode.Binary {
+        @Specialization
+        static Object doDefault(TruffleString string, TruffleString pattern,
+                @Cached PatternNode patternNode,
+                @Cached SubjectNode subjectNode) {
+            return matchAll(patternNode.execute(pattern), string, subjectNode.execute(string));
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static LoxArray matchAll(Pattern pattern, TruffleString string, CharSequence subject) {
+            Matcher matcher = pattern.matcher(subject);
+            var result = new LoxArray();
+            while (matcher.find()) {
+                result.set(result.getSize(), groups(matcher, string, subject));
+            }
+            return result;
+        }
+
+        @Fallback
+        static Object doError(Object string, Object pattern,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "matchAll", string, pattern);
+        }
+    }
+
+    /**
+     * {@code replace(string, pattern, replacement)} replaces every match. The replacement may refer
+     * to groups as {@code $1} or {@code ${name}}.
+     */
+    public abstract static class ReplaceBuiltInNode extends BuiltInNode.Ternary {
+        @Specialization
+        static Object doDefault(TruffleString string, TruffleString pattern, TruffleString replacement,
+                @Cached PatternNode patternNode,
+                @Cached SubjectNode subjectNode,
+                @Bind Node node) {
+            return replace(patternNode.execute(pattern), string, subjectNode.execute(string), replacement, node);
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static TruffleString replace(Pattern pattern, TruffleString string, CharSequence subject, TruffleString replacement,
+                Node node) {
+            Matcher matcher = pattern.matcher(subject);
+            if (!matcher.find()) {
+                return string;
+            }
+            try {
+                return TruffleString.fromJavaStringUncached(matcher.replaceAll(replacement.toJavaStringUncached()), StringBuiltIns.UTF_8);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new LoxRuntimeError("Invalid replacement '" + replacement + "': " + e.getMessage(), node);
+            }
+        }
+
+        @Fallback
+        static Object doError(Object string, Object pattern, Object replacement,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "replace", string, pattern, replacement);
+        }
+    }
+}
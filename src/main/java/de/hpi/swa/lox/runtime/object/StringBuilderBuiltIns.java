@@ -0,0 +1,63 @@
+package de.hpi.swa.lox.runtime.object;
+
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+
+/**
+ * Built-in functions for {@link LoxStringBuilder}s. Values are appended in the form {@code print}
+ * shows them.
+ */
+public final class StringBuilderBuiltIns {
+
+    private StringBuilderBuiltIns() {
+    }
+
+    public static void install(GlobalObject globals) {
+        ArrayBuiltIns.define(globals, "StringBuilder", StringBuilderBuiltInsFactory.NewStringBuilderBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "append", StringBuilderBuiltInsFactory.AppendBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "toString", StringBuilderBuiltInsFactory.ToStringBuiltInNodeGen.create());
+    }
+
+    /** {@code StringBuilder()} creates an empty builder. */
+    public abstract static class NewStringBuilderBuiltInNode extends BuiltInNode.Unary {
+        @Specialization
+        static Object doDefault(Object unused) {
+            return new LoxStringBuilder();
+        }
+    }
+
+    /** {@code append(builder, value)} appends a value and returns the builder. */
+    public abstract static class AppendBuiltInNode extends BuiltInNode.Binary {
+        @Specialization
+        static Object doDefault(LoxStringBuilder sb, Object value,
+                @Cached LoxAppendNode appendNode) {
+            appendNode.execute(sb.getBuilder(), value);
+            return sb;
+        }
+
+        @Fallback
+        static Object doError(Object sb, Object value,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "append", sb, value);
+        }
+    }
+
+    /** {@code toString(builder)} returns the contents of the builder as a string. */
+    public abstract static class ToStringBuiltInNode extends BuiltInNode.Unary {
+        @Specialization
+        static Object doDefault(LoxStringBuilder sb,
+                @Cached TruffleStringBuilder.ToStringNode toStringNode) {
+            return toStringNode.execute(sb.getBuilder());
+        }
+
+        @Fallback
+        static Object doError(Object sb,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "toString", sb);
+        }
+    }
+}
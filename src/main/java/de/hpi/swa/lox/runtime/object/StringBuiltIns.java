@@ -0,0 +1,351 @@
+package de.hpi.swa.lox.runtime.object;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Cached.Shared;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.strings.TruffleString;
+import com.oracle.truffle.api.strings.TruffleStringBuilder;
+import com.oracle.truffle.api.strings.TruffleStringIterator;
+
+/**
+ * Built-in functions for strings. Indices and lengths count code points, so they are the same as
+ * character positions for ASCII text. Substrings are lazy and share the bytes of the string they
+ * are taken from. {@code indexOf(string, substring)} is a specialization of the array built-in.
+ */
+public final class StringBuiltIns {
+    static final TruffleString.Encoding UTF_8 = TruffleString.Encoding.UTF_8;
+
+    private StringBuiltIns() {
+    }
+
+    public static void install(GlobalObject globals) {
+        ArrayBuiltIns.define(globals, "len", StringBuiltInsFactory.LenBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "charAt", StringBuiltInsFactory.CharAtBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "substring", StringBuiltInsFactory.SubstringBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "split", StringBuiltInsFactory.SplitBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "join", StringBuiltInsFactory.JoinBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "startsWith", StringBuiltInsFactory.StartsWithBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "trim", StringBuiltInsFactory.TrimBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "toUpper", StringBuiltInsFactory.ToUpperBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "toLower", StringBuiltInsFactory.ToLowerBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "format", new FormatBuiltInNode());
+    }
+
+    /**
+     * {@code len(value)} returns the length of a string, map, array, array view, typed array or
+     * buffer. The sizes agree with the ones indexing and {@code for-of} use.
+     */
+    public abstract static class LenBuiltInNode extends BuiltInNode.Unary {
+        @Specialization
+        static long doString(TruffleString string,
+                @Cached TruffleString.CodePointLengthNode lengthNode) {
+            return lengthNode.execute(string, UTF_8);
+        }
+
+        @Specialization
+        static long doArray(LoxArray array) {
+            return array.getSize();
+        }
+
+        @Specialization
+        static long doView(LoxArrayView view) {
+            return view.getSize();
+        }
+
+        @Specialization
+        static long doInt64Array(LoxInt64Array array) {
+            return array.getSize();
+        }
+
+        @Specialization
+        static long doFloat64Array(LoxFloat64Array array) {
+            return array.getSize();
+        }
+
+        @Specialization
+        static long doByteArray(LoxByteArray array) {
+            return array.getSize();
+        }
+
+        @Specialization
+        static long doBuffer(LoxBuffer buffer) {
+            return buffer.getSize();
+        }
+
+        @Specialization
+        static long doMap(LoxMap map) {
+            return map.size();
+        }
+
+        @Fallback
+        static Object doError(Object value,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "len", value);
+        }
+    }
+
+    /** {@code charAt(string, index)} returns the code point at an index as a string. */
+    public abstract static class CharAtBuiltInNode extends BuiltInNode.Binary {
+        @Specialization
+        static Object doDefault(TruffleString string, long index,
+                @Cached TruffleString.CodePointLengthNode lengthNode,
+                @Cached TruffleString.CodePointAtIndexNode codePointAtNode,
+                @Cached TruffleString.FromCodePointNode fromCodePointNode,
+                @Bind Node node) {
+            if (index < 0 || index >= lengthNode.execute(string, UTF_8)) {
+                throw ArrayBuiltIns.argumentError(node, "charAt", string, index);
+            }
+            return fromCodePointNode.execute(codePointAtNode.execute(string, (int) index, UTF_8), UTF_8);
+        }
+
+        @Fallback
+        static Object doError(Object string, Object index,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "charAt", string, index);
+        }
+    }
+
+    /**
+     * {@code substring(string, start[, end])} returns the code points from {@code start} up to
+     * {@code end}, or up to the end of the string.
+     */
+    public abstract static class SubstringBuiltInNode extends BuiltInNode.Ternary {
+        @Specialization
+        static Object doRange(TruffleString string, long start, long end,
+                @Shared @Cached TruffleString.CodePointLengthNode lengthNode,
+                @Shared @Cached TruffleString.SubstringNode substringNode,
+                @Bind Node node) {
+            if (start < 0 || start > end || end > lengthNode.execute(string, UTF_8)) {
+                throw ArrayBuiltIns.argumentError(node, "substring", string, start, end);
+            }
+            return substringNode.execute(string, (int) start, (int) (end - start), UTF_8, true);
+        }
+
+        @Specialization
+        static Object doRest(TruffleString string, long start, Nil end,
+                @Shared @Cached TruffleString.CodePointLengthNode lengthNode,
+                @Shared @Cached TruffleString.SubstringNode substringNode,
+                @Bind Node node) {
+            int length = lengthNode.execute(string, UTF_8);
+            if (start < 0 || start > length) {
+                throw ArrayBuiltIns.argumentError(node, "substring", string, start, end);
+            }
+            return substringNode.execute(string, (int) start, length - (int) start, UTF_8, true);
+        }
+
+        @Fallback
+        static Object doError(Object string, Object start, Object end,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "substring", string, start, end);
+        }
+    }
+
+    /**
+     * {@code split(string, separator)} returns an array of the parts between occurrences of the
+     * separator. An empty separator splits the string into its code points.
+     */
+    public abstract static class SplitBuiltInNode extends BuiltInNode.Binary {
+        @Specialization(guards = "separator.isEmpty()")
+        static Object doCodePoints(TruffleString string, TruffleString separator,
+                @Cached TruffleString.CodePointLengthNode lengthNode,
+                @Cached TruffleString.CreateCodePointIteratorNode createIteratorNode,
+                @Cached TruffleStringIterator.NextNode nextNode,
+                @Shared @Cached TruffleString.SubstringByteIndexNode substringNode) {
+            Object[] parts = new Object[lengthNode.execute(string, UTF_8)];
+            TruffleStringIterator iterator = createIteratorNode.execute(string, UTF_8);
+            for (int i = 0; iterator.hasNext(); i++) {
+                int start = iterator.getByteIndex();
+                nextNode.execute(iterator);
+                parts[i] = substringNode.execute(string, start, iterator.getByteIndex() - start, UTF_8, true);
+            }
+            return new LoxArray(parts);
+        }
+
+        @Specialization(guards = "!separator.isEmpty()")
+        static Object doSeparator(TruffleString string, TruffleString separator,
+                @Cached TruffleString.ByteIndexOfStringNode indexOfNode,
+                @Shared @Cached TruffleString.SubstringByteIndexNode substringNode) {
+            // UTF-8 is self-synchronizing, so a byte match of the separator is a code point match.
+            int length = string.byteLength(UTF_8);
+            int separatorLength = separator.byteLength(UTF_8);
+            var result = new LoxArray();
+            int start = 0;
+            while (true) {
+                int index = start <= length - separatorLength ? indexOfNode.execute(string, separator, start, length, UTF_8) : -1;
+                int end = index < 0 ? length : index;
+                result.set(result.getSize(), substringNode.execute(string, start, end - start, UTF_8, true));
+                if (index < 0) {
+                    return result;
+                }
+                start = index + separatorLength;
+            }
+        }
+
+        @Fallback
+        static Object doError(Object string, Object separator,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "split", string, separator);
+        }
+    }
+
+    /**
+     * {@code join(array, separator)} concatenates the elements of an array, converted like
+     * {@code print} does, with the separator between them.
+     */
+    public abstract static class JoinBuiltInNode extends BuiltInNode.Binary {
+        @Specialization
+        static Object doDefault(LoxArray array, TruffleString separator,
+                @Cached LoxAppendNode appendNode,
+                @Cached TruffleStringBuilder.AppendStringNode appendSeparatorNode,
+                @Cached TruffleStringBuilder.ToStringNode toStringNode) {
+            var builder = TruffleStringBuilder.create(UTF_8);
+            for (int i = 0; i < array.getSize(); i++) {
+                if (i > 0) {
+                    appendSeparatorNode.execute(builder, separator);
+                }
+                appendNode.execute(builder, array.get(i));
+            }
+            return toStringNode.execute(builder);
+        }
+
+        @Fallback
+        static Object doError(Object array, Object separator,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "join", array, separator);
+        }
+    }
+
+    /** {@code startsWith(string, prefix)} returns whether the string begins with the prefix. */
+    public abstract static class StartsWithBuiltInNode extends BuiltInNode.Binary {
+        @Specialization
+        static boolean doDefault(TruffleString string, TruffleString prefix,
+                @Cached TruffleString.RegionEqualByteIndexNode regionEqualNode) {
+            int prefixLength = prefix.byteLength(UTF_8);
+            return prefixLength <= string.byteLength(UTF_8)
+                    && regionEqualNode.execute(string, 0, prefix, 0, prefixLength, UTF_8);
+        }
+
+        @Fallback
+        static Object doError(Object string, Object prefix,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "startsWith", string, prefix);
+        }
+    }
+
+    /**
+     * {@code trim(string)} removes leading and trailing ASCII whitespace and control characters. In
+     * UTF-8 these bytes never occur inside a multi-byte code point, so the string is scanned byte by
+     * byte.
+     */
+    public abstract static class TrimBuiltInNode extends BuiltInNode.Unary {
+        @Specialization
+        static Object doDefault(TruffleString string,
+                @Cached TruffleString.ReadByteNode readByteNode,
+                @Cached TruffleString.SubstringByteIndexNode substringNode) {
+            int start = 0;
+            int end = string.byteLength(UTF_8);
+            while (start < end && readByteNode.execute(string, start, UTF_8) <= ' ') {
+                start++;
+            }
+            while (end > start && readByteNode.execute(string, end - 1, UTF_8) <= ' ') {
+                end--;
+            }
+            return substringNode.execute(string, start, end - start, UTF_8, true);
+        }
+
+        @Fallback
+        static Object doError(Object string,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "trim", string);
+        }
+    }
+
+    /**
+     * Converts the case of a string. ASCII strings are converted byte by byte, other strings with
+     * the Unicode case mappings of {@link String}.
+     */
+    static TruffleString changeCase(TruffleString string, boolean toUpperCase, TruffleString.GetCodeRangeNode getCodeRangeNode,
+            TruffleString.CopyToByteArrayNode copyNode, TruffleString.FromByteArrayNode fromByteArrayNode) {
+        if (getCodeRangeNode.execute(string, UTF_8) != TruffleString.CodeRange.ASCII) {
+            return changeCaseUnicode(string, toUpperCase);
+        }
+        byte[] bytes = copyNode.execute(string, UTF_8);
+        byte first = (byte) (toUpperCase ? 'a' : 'A');
+        int offset = toUpperCase ? 'A' - 'a' : 'a' - 'A';
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] >= first && bytes[i] <= first + 25) {
+                bytes[i] += offset;
+            }
+        }
+        return fromByteArrayNode.execute(bytes, UTF_8, false);
+    }
+
+    @CompilerDirectives.TruffleBoundary
+    private static TruffleString changeCaseUnicode(TruffleString string, boolean toUpperCase) {
+        String value = string.toJavaStringUncached();
+        value = toUpperCase ? value.toUpperCase(Locale.ROOT) : value.toLowerCase(Locale.ROOT);
+        return TruffleString.fromJavaStringUncached(value, UTF_8);
+    }
+
+    /** {@code toUpper(string)} converts a string to upper case. */
+    public abstract static class ToUpperBuiltInNode extends BuiltInNode.Unary {
+        @Specialization
+        static Object doDefault(TruffleString string,
+                @Cached TruffleString.GetCodeRangeNode getCodeRangeNode,
+                @Cached TruffleString.CopyToByteArrayNode copyNode,
+                @Cached TruffleString.FromByteArrayNode fromByteArrayNode) {
+            return changeCase(string, true, getCodeRangeNode, copyNode, fromByteArrayNode);
+        }
+
+        @Fallback
+        static Object doError(Object string,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "toUpper", string);
+        }
+    }
+
+    /** {@code toLower(string)} converts a string to lower case. */
+    public abstract static class ToLowerBuiltInNode extends BuiltInNode.Unary {
+        @Specialization
+        static Object doDefault(TruffleString string,
+                @Cached TruffleString.GetCodeRangeNode getCodeRangeNode,
+                @Cached TruffleString.CopyToByteArrayNode copyNode,
+                @Cached TruffleString.FromByteArrayNode fromByteArrayNode) {
+            return changeCase(string, false, getCodeRangeNode, copyNode, fromByteArrayNode);
+        }
+
+        @Fallback
+        static Object doError(Object string,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "toLower", string);
+        }
+    }
+
+    /**
+     * {@code format(fmt, args...)} renders a format string as described in {@link FormatTemplate}.
+     * All arguments after the format string are passed on, however many there are; it is an error
+     * if their number differs from the number of specifiers. {@code %f} accepts integers as well as
+     * doubles, so {@code format("%.1f", 2)} is {@code 2.0}.
+     */
+    public static final class FormatBuiltInNode extends BuiltInNode {
+        private static final int VALUES_OFFSET = LoxFunction.ARGUMENT_OFFSET + 1;
+
+        @Child private LoxFormatNode formatNode = LoxFormatNodeGen.create();
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            Object[] arguments = frame.getArguments();
+            Object[] values = arguments.length > VALUES_OFFSET ? Arrays.copyOfRange(arguments, VALUES_OFFSET, arguments.length)
+                    : new Object[0];
+            return formatNode.execute(getArgument(frame, 0), values);
+        }
+    }
+}
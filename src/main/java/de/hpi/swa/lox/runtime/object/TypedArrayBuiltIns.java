@@ -0,0 +1,69 @@
+package de.hpi.swa.lox.runtime.object;
+
+import com.oracle.truffle.api.dsl.Bind;
+import com.oracle.truffle.api.dsl.Fallback;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.nodes.Node;
+
+/**
+ * Constructors of the typed arrays {@link LoxInt64Array}, {@link LoxFloat64Array} and
+ * {@link LoxByteArray}. Each takes the length of the array.
+ */
+public final class TypedArrayBuiltIns {
+    /** The largest array length the JVM reliably supports. */
+    private static final long MAX_LENGTH = Integer.MAX_VALUE - 8;
+
+    private TypedArrayBuiltIns() {
+    }
+
+    public static void install(GlobalObject globals) {
+        ArrayBuiltIns.define(globals, "Int64Array", TypedArrayBuiltInsFactory.Int64ArrayBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "Float64Array", TypedArrayBuiltInsFactory.Float64ArrayBuiltInNodeGen.create());
+        ArrayBuiltIns.define(globals, "ByteArray", TypedArrayBuiltInsFactory.ByteArrayBuiltInNodeGen.create());
+    }
+
+    abstract static class ConstructorBuiltInNode extends BuiltInNode.Unary {
+        static boolean isValidLength(long length) {
+            return length >= 0 && length <= MAX_LENGTH;
+        }
+    }
+
+    public abstract static class Int64ArrayBuiltInNode extends ConstructorBuiltInNode {
+        @Specialization(guards = "isValidLength(length)")
+        static Object doDefault(long length) {
+            return new LoxInt64Array((int) length);
+        }
+
+        @Fallback
+        static Object doError(Object length,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "Int64Array", length);
+        }
+    }
+
+    public abstract static class Float64ArrayBuiltInNode extends ConstructorBuiltInNode {
+        @Specialization(guards = "isValidLength(length)")
+        static Object doDefault(long length) {
+            return new LoxFloat64Array((int) length);
+        }
+
+        @Fallback
+        static Object doError(Object length,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "Float64Array", length);
+        }
+    }
+
+    public abstract static class ByteArrayBuiltInNode extends ConstructorBuiltInNode {
+        @Specialization(guards = "isValidLength(length)")
+        static Object doDefault(long length) {
+            return new LoxByteArray((int) length);
+        }
+
+        @Fallback
+        static Object doError(Object length,
+                @Bind Node node) {
+            throw ArrayBuiltIns.argumentError(node, "ByteArray", length);
+        }
+    }
+}
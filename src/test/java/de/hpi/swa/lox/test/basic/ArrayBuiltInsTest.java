@@ -0,0 +1,91 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class ArrayBuiltInsTest extends AbstractLoxTest {
+    @Test
+    public void testPushAndPop() {
+        runAndExpect("push and pop", """
+                var a = [];
+                for (var i = 0; i < 20; i = i + 1) { push(a, i); }
+                print push(a, 20);
+                print pop(a); print pop(a);
+                print a[18];
+                push(a, "x");
+                print pop(a); print pop([]);
+                """, "21\n20\n19\n18\nx\nnil\n");
+    }
+
+    @Test
+    public void testInsertAndRemove() {
+        runAndExpect("insert and remove", """
+                var a = [1, 2, 4];
+                insert(a, 2, 3);
+                insert(a, 0, "zero");
+                print a;
+                print remove(a, 0);
+                print a;
+                """, "[\"zero\", 1, 2, 3, 4]\nzero\n[1, 2, 3, 4]\n");
+    }
+
+    @Test
+    public void testSliceAndConcat() {
+        runAndExpect("slice and concat", """
+                var a = [1, 2, 3, 4, 5];
+                print slice(a, 1, 3);
+                print slice(a, 3);
+                print concat(a, [6.5]);
+                print concat([1], [2]);
+                """, "[2, 3]\n[4, 5]\n[1, 2, 3, 4, 5, 6.5]\n[1, 2]\n");
+    }
+
+    @Test
+    public void testFillAndCopyWithin() {
+        runAndExpect("fill and copyWithin", """
+                var a = [1, 2, 3, 4, 5];
+                fill(a, 0, 1, 3);
+                print a;
+                copyWithin(a, 0, 3);
+                print a;
+                fill(a, true);
+                print a;
+                """, "[1, 0, 0, 4, 5]\n[4, 5, 0, 4, 5]\n[true, true, true, true, true]\n");
+    }
+
+    @Test
+    public void testIndexOf() {
+        runAndExpect("indexOf", """
+                print indexOf([1, 2, 3], 3);
+                print indexOf([1.5, 2.5], 2.5);
+                print indexOf(["a", "b"], "b");
+                print indexOf([1, 2], 5);
+                """, "2\n1\n1\n-1\n");
+    }
+
+    @Test
+    public void testIndexOfUsesEquality() {
+        runAndExpect("indexOf like ==", """
+                fun position(array, value) {
+                    return indexOf(array, value);
+                }
+                var infinity = 1.0;
+                for (var i = 0; i < 1100; i = i + 1) infinity = infinity * 2;
+                var nan = infinity - infinity;
+                print position([0.0, 1.5], -0.0);
+                print position([nan], nan);
+                print position([1, "x"], "x");
+                print position([0.0, 1.5], -0.0);
+                print position([nan], nan);
+                print position([1, 2], 2.0);
+                print position([1.0, 2.5], 1);
+                print position([nil, true], true);
+                """, "0\n-1\n1\n0\n-1\n1\n0\n1\n");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        runAndExpectError("push to non-array", "push(1, 2);", "Unsupported arguments for push");
+    }
+}
@@ -0,0 +1,70 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class ArrayCombinatorsTest extends AbstractLoxTest {
+    @Test
+    public void testMapAndFilter() {
+        runAndExpect("map and filter", """
+                var a = [1, 2, 3, 4];
+                print map(a, (x) => x * x);
+                print map(a, (x, i) => i);
+                print filter(a, (x) => x % 2 == 0);
+                """, "[1, 4, 9, 16]\n[0, 1, 2, 3]\n[2, 4]\n");
+    }
+
+    @Test
+    public void testReduceAndForEach() {
+        runAndExpect("reduce and forEach", """
+                var a = [1, 2, 3, 4];
+                print reduce(a, (acc, x) => acc + x, 0);
+                fun show(x) { print x; }
+                forEach(["a", "b"], show);
+                """, "10\na\nb\n");
+    }
+
+    @Test
+    public void testSomeEveryFind() {
+        runAndExpect("some, every and find", """
+                var a = [1, 2, 3, 4];
+                print some(a, (x) => x > 3);
+                print every(a, (x) => x > 3);
+                print every([], (x) => false);
+                print find(a, (x) => x > 2);
+                print find(a, (x) => x > 5);
+                """, "true\nfalse\ntrue\n3\nnil\n");
+    }
+
+    @Test
+    public void testClosureCallback() {
+        runAndExpect("closure callback", """
+                fun scale(a, factor) {
+                    return map(a, (x) => x * factor);
+                }
+                print scale([1, 2], 3);
+                """, "[3, 6]\n");
+    }
+
+    @Test
+    public void testSitesWithDifferentCallbacks() {
+        runAndExpect("two sites with different callbacks", """
+                fun double(x) { return x * 2; }
+                fun negate(x) { return -x; }
+                var a = [1, 2, 3];
+                var doubled; var negated;
+                for (var i = 0; i < 1000; i = i + 1) {
+                    doubled = map(a, double);
+                    negated = map(a, negate);
+                }
+                print doubled;
+                print negated;
+                """, "[2, 4, 6]\n[-1, -2, -3]\n");
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        runAndExpectError("map without function", "map([1], 2);", "Expected an array and a function for map");
+    }
+}
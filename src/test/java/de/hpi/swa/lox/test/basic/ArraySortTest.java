@@ -0,0 +1,45 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class ArraySortTest extends AbstractLoxTest {
+    @Test
+    public void testNaturalOrder() {
+        runAndExpect("natural order", """
+                print sort([3, 1, 2]);
+                print sort([2.5, -1.0, 0.5]);
+                print sort(["pear", "apple", "fig"]);
+                print sort([3, 1.5, 2]);
+                print sort([]);
+                """, "[1, 2, 3]\n[-1.0, 0.5, 2.5]\n[\"apple\", \"fig\", \"pear\"]\n[1.5, 2, 3]\n[]\n");
+    }
+
+    @Test
+    public void testSortsInPlace() {
+        runAndExpect("sorts in place", """
+                var a = [5, 4, 3];
+                sort(a);
+                print a;
+                fun literal() { return [2, 1]; }
+                sort(literal());
+                print literal();
+                """, "[3, 4, 5]\n[2, 1]\n");
+    }
+
+    @Test
+    public void testComparator() {
+        runAndExpect("comparator", """
+                print sort([1, 3, 2], (a, b) => b - a);
+                print sort([[1, "a"], [0, "b"], [1, "c"], [0, "d"]], (x, y) => x[0] - y[0]);
+                """, "[3, 2, 1]\n[[0, \"b\"], [0, \"d\"], [1, \"a\"], [1, \"c\"]]\n");
+    }
+
+    @Test
+    public void testErrors() {
+        runAndExpectError("incomparable", "sort([1, \"a\"]);", "Cannot compare");
+        runAndExpectError("bad comparator", "sort([1, 2], (a, b) => nil);", "Comparator must return a number");
+        runAndExpectError("not an array", "sort(1);", "Unsupported arguments for sort");
+    }
+}
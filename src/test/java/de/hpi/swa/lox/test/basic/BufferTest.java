@@ -0,0 +1,60 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class BufferTest extends AbstractLoxTest {
+    @Test
+    public void testAccessors() {
+        runAndExpect("accessors", """
+                var b = Buffer(24);
+                print b;
+                setInt64(b, 0, -2);
+                setFloat64(b, 8, 1.5);
+                setByte(b, 16, 300);
+                print getInt64(b, 0);
+                print getFloat64(b, 8);
+                print getByte(b, 16);
+                print b[0];
+                b[17] = 7;
+                print getByte(b, 17);
+                print getInt64(b, 16);
+                """, "Buffer(24)\n-2\n1.5\n44\n254\n7\n1836\n");
+    }
+
+    @Test
+    public void testLittleEndian() {
+        runAndExpect("little endian", """
+                var b = Buffer(8);
+                setInt64(b, 0, 258);
+                for (var x of b) {
+                    print x;
+                }
+                """, "2\n1\n0\n0\n0\n0\n0\n0\n");
+    }
+
+    @Test
+    public void testCopy() {
+        runAndExpect("copy", """
+                var a = Buffer(8);
+                var b = Buffer(8);
+                for (var i = 0; i < 8; i = i + 1) {
+                    a[i] = i + 1;
+                }
+                copyBuffer(a, 2, b, 0, 4);
+                print getByte(b, 0);
+                print getByte(b, 3);
+                copyBuffer(a, 0, a, 2, 6);
+                print getByte(a, 2);
+                print getByte(a, 7);
+                """, "3\n6\n1\n6\n");
+    }
+
+    @Test
+    public void testErrors() {
+        runAndExpectError("out of bounds", "var b = Buffer(8); getInt64(b, 1);", "Unsupported arguments for getInt64");
+        runAndExpectError("negative size", "Buffer(-1);", "Unsupported arguments for Buffer");
+        runAndExpectError("index", "var b = Buffer(1); print b[1];", "Cannot read index 1");
+    }
+}
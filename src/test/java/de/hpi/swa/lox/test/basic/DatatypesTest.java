@@ -16,6 +16,25 @@ public class DatatypesTest extends AbstractLoxTest {
         runAndExpect("testString", "print \"Hello, World!\";", "Hello, World!\n");
     }
 
+    @Test
+    public void testStringConcatenation() {
+        runAndExpect("testStringConcatenation", "print \"a\" + \"b\";", "ab\n");
+        runAndExpect("testStringConcatenation", "print \"n=\" + 42 + \", x=\" + 2.5;", "n=42, x=2.5\n");
+        runAndExpect("testStringConcatenation", "print -7 + \"!\";", "-7!\n");
+        runAndExpect("testStringConcatenation", "print 9223372036854775807 + 1 + \"!\";",
+                "9223372036854775808!\n");
+        runAndExpect("testStringConcatenation", """
+                var s = "#";
+                var t = "#";
+                for (var i = 0; i < 1000; i = i + 1) {
+                    s = s + i % 10;
+                    t = t + (i % 10);
+                }
+                print s == t;
+                print s == t + "x";
+                """, "true\nfalse\n");
+    }
+
     @Test
     public void testNumber() {
         runAndExpect("testNumber", "print 42;", "42\n");
@@ -52,6 +52,19 @@ public class ExpressionTest extends AbstractLoxTest {
         runAndExpect("testComparison", "print 1 != 2;", "true\n");
     }
 
+    @Test
+    public void testEquality() {
+        runAndExpect("testEquality", "print 1 == 1.0;", "true\n");
+        runAndExpect("testEquality", "print 0.5 != 0.5;", "false\n");
+        runAndExpect("testEquality", "print \"a\" + \"b\" == \"ab\";", "true\n");
+        runAndExpect("testEquality", "print true == true;", "true\n");
+        runAndExpect("testEquality", "print nil == nil;", "true\n");
+        runAndExpect("testEquality", "print nil == false;", "false\n");
+        runAndExpect("testEquality", "print 1 == \"1\";", "false\n");
+        runAndExpect("testEquality", "print 9223372036854775807 + 1 - 1 == 9223372036854775807;", "true\n");
+        runAndExpect("testEquality", "var a = [1]; var b = [1]; print a == a; print a == b;", "true\nfalse\n");
+    }
+
     @Test
     public void testPrecedence() {
         runAndExpect("testPrecedence", "print 1 + 2 * 3;", "7\n");
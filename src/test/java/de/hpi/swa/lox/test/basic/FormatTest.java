@@ -0,0 +1,69 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class FormatTest extends AbstractLoxTest {
+    @Test
+    public void testIntegers() {
+        runAndExpect("integers", """
+                print format("%d", 42);
+                print format("[%5d|%-5d|%05d]", 42, 42, -42);
+                print format("%d", 9223372036854775807 + 1);
+                print format("%d%%", 100);
+                """, "42\n[   42|42   |-0042]\n9223372036854775808\n100%\n");
+    }
+
+    @Test
+    public void testFixed() {
+        runAndExpect("fixed", """
+                print format("%f", 1.5);
+                print format("%.2f", 3.14159);
+                print format("%.0f", 2.5);
+                print format("%.2f", 0.125);
+                print format("%.3f", 7);
+                print format("%8.2f|%-8.2f|%08.2f", -1.005, 1.5, -1.5);
+                """, "1.500000\n3.14\n3\n0.13\n7.000\n   -1.01|1.50    |-0001.50\n");
+    }
+
+    @Test
+    public void testStrings() {
+        runAndExpect("strings", """
+                print format("%s and %s", "this", "that");
+                print format("%s %s %s %s", 1, 2.5, true, nil);
+                print format("[%6s|%-6s]", "äb", [1]);
+                print format("no specifiers");
+                """, "this and that\n1 2.5 true nil\n[    äb|[1]   ]\nno specifiers\n");
+    }
+
+    @Test
+    public void testCachedAtCallSite() {
+        runAndExpect("cached", """
+                var formats = ["%d", "<%d>", "%3d", "%-3d|", "%f"];
+                for (var i = 0; i < 10; i = i + 1) {
+                    print format(formats[i % 5], i);
+                }
+                """, "0\n<1>\n  2\n3  |\n4.000000\n5\n<6>\n  7\n8  |\n9.000000\n");
+    }
+
+    @Test
+    public void testPrintf() {
+        runAndExpect("printf", """
+                printf "%s=%d", "x", 1;
+                printf "%n";
+                for (var i = 1; i <= 3; i = i + 1) {
+                    printf "%d:%.1f%n", i, i / 4.0;
+                }
+                """, "x=1\n1:0.3\n2:0.5\n3:0.8\n");
+    }
+
+    @Test
+    public void testErrors() {
+        runAndExpectError("missing argument", "format(\"%d %d\", 1);", "Format string expects 2 arguments, got 1");
+        runAndExpectError("extra argument", "format(\"%d\", 1, 2);", "Format string expects 1 arguments, got 2");
+        runAndExpectError("wrong type", "format(\"%d\", \"x\");", "Cannot format x with %d");
+        runAndExpectError("invalid specifier", "format(\"%q\", 1);", "Invalid format specifier '%q'");
+        runAndExpectError("not a string", "printf 1;", "Expected a format string, got 1");
+    }
+}
@@ -0,0 +1,126 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class MapTest extends AbstractLoxTest {
+    @Test
+    public void testStringKeys() {
+        runAndExpect("string keys", """
+                var counts = Map();
+                var words = ["a", "b", "a", "c", "a", "b"];
+                for (var w of words) {
+                    if (has(counts, w)) {
+                        counts[w] = counts[w] + 1;
+                    } else {
+                        counts[w] = 1;
+                    }
+                }
+                print counts["a"];
+                print counts["b"];
+                print counts["c"];
+                print counts["d"];
+                print sort(keys(counts));
+                """, "3\n2\n1\nnil\n[\"a\", \"b\", \"c\"]\n");
+    }
+
+    @Test
+    public void testLongKeys() {
+        runAndExpect("long keys", """
+                var memo = Map();
+                fun fib(n) {
+                    if (n < 2) return n;
+                    if (has(memo, n)) return memo[n];
+                    var result = fib(n - 1) + fib(n - 2);
+                    memo[n] = result;
+                    return result;
+                }
+                print fib(80);
+                var sorted = sort(keys(memo));
+                print sorted[0];
+                """, "23416728348467685\n2\n");
+    }
+
+    @Test
+    public void testEmptyMaps() {
+        runAndExpect("empty maps", """
+                for (var i = 0; i < 3; i = i + 1) {
+                    var longs = Map();
+                    print has(longs, i);
+                    print longs[i];
+                    longs[i] = i;
+                    var strings = Map();
+                    print strings["k"];
+                    strings["k"] = i;
+                    print longs[i] + strings["k"];
+                }
+                """, "false\nnil\nnil\n0\nfalse\nnil\nnil\n2\nfalse\nnil\nnil\n4\n");
+    }
+
+    @Test
+    public void testMixedKeys() {
+        runAndExpect("mixed keys", """
+                var m = Map();
+                m[1] = "one";
+                m["two"] = 2;
+                m[true] = nil;
+                print m[1];
+                print m["two"];
+                print has(m, true);
+                print m[false];
+                """, "one\n2\ntrue\nnil\n");
+    }
+
+    @Test
+    public void testKeysFollowEquality() {
+        runAndExpect("keys like ==", """
+                var m = Map();
+                m[1] = "one";
+                m[0.0] = "zero";
+                print m[1.0];
+                print m[-0.0];
+                print has(m, 1.0);
+                m[2.0] = "two";
+                print m[2];
+                m["s"] = 1.5;
+                m[1.5] = "a half";
+                print m[1.0];
+                print m[1.5];
+                var infinity = 1.0;
+                for (var i = 0; i < 1100; i = i + 1) infinity = infinity * 2;
+                var nan = infinity - infinity;
+                m[nan] = 1;
+                print has(m, nan);
+                print len(m);
+                """, "one\nzero\ntrue\ntwo\none\na half\nfalse\n6\n");
+    }
+
+    @Test
+    public void testDelete() {
+        runAndExpect("delete", """
+                var m = Map();
+                for (var i = 0; i < 100; i = i + 1) {
+                    m[i] = i * i;
+                }
+                for (var i = 0; i < 100; i = i + 2) {
+                    delete(m, i);
+                }
+                print delete(m, 0);
+                print has(m, 2);
+                print m[3];
+                print reduce(keys(m), (n, k) => n + 1, 0);
+                m[2] = 4;
+                print m[2];
+                """, "false\nfalse\n9\n50\n4\n");
+    }
+
+    @Test
+    public void testPrint() {
+        runAndExpect("print", """
+                var m = Map();
+                m["x"] = 1;
+                print m;
+                """, "{\"x\": 1}\n");
+    }
+}
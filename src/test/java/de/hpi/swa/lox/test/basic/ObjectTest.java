@@ -1,5 +1,6 @@
 package de.hpi.swa.lox.test.basic;
 
+import org.graalvm.polyglot.Context;
 import org.junit.Test;
 
 import de.hpi.swa.lox.test.AbstractLoxTest;
@@ -65,4 +66,43 @@ public class ObjectTest extends AbstractLoxTest {
     public void testInitWithArguments() {
         runAndExpect("class init with args", "class O { init(a) {this.a = a;}} var o = O(3); print o.a;", "3\n");
     }
+
+    @Test
+    public void testInstantiationInLoop() {
+        runAndExpect("instantiate in loop", """
+                class P { init(x) { this.x = x; } }
+                class Q {}
+                var sum = 0;
+                for (var i = 0; i < 100; i = i + 1) {
+                    var p = P(i);
+                    var q = Q();
+                    sum = sum + p.x;
+                }
+                print sum;
+                """, "4950\n");
+    }
+
+    @Test
+    public void testMissingArgumentIsNil() {
+        runAndExpect("missing init argument", "class O { init(a, b) {this.b = b;}} var o = O(3); print o.b;", "nil\n");
+    }
+
+    @Test
+    public void testDictionaryMode() {
+        context.close();
+        context = Context.newBuilder().allowExperimentalOptions(true).option("lox.DictionaryModeThreshold", "3").build();
+        runAndExpect("object in dictionary mode", """
+                class O { m() { return this.a + this.e; } }
+                var o = O();
+                o.a = 1; o.b = 2; o.c = 3; o.d = 4; o.e = 5;
+                o.a = "x";
+                print o.a; print o.b; print o.e; print o.f; print o.m();
+                """, "x\n2\n5\nnil\nx5\n");
+        runAndExpect("property named Class survives demotion", """
+                class P {}
+                var p = P();
+                p.Class = "user"; p.b = 2; p.c = 3; p.d = 4; p.e = 5;
+                print p.Class;
+                """, "user\n");
+    }
 }
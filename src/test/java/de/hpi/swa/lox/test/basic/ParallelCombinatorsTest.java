@@ -0,0 +1,98 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.graalvm.polyglot.Context;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class ParallelCombinatorsTest extends AbstractLoxTest {
+    private static final String RANGE = """
+            fun range(n) {
+                var a = [];
+                for (var i = 0; i < n; i = i + 1) {
+                    a[i] = i;
+                }
+                return a;
+            }
+            var a = range(10000);
+            """;
+
+    @Before
+    public void allowThreadCreation() {
+        context.close();
+        context = Context.newBuilder().allowCreateThread(true).allowExperimentalOptions(true)
+                .option("lox.Parallelism", "4").build();
+    }
+
+    @Test
+    public void testParallelMap() {
+        runAndExpect("parallelMap", RANGE + """
+                var b = parallelMap(a, (x) => x * 2);
+                print b[0];
+                print b[9999];
+                print reduce(b, (acc, x) => acc + x, 0);
+                print parallelMap([1, 2, 3], (x, i) => x + i);
+                """, "0\n19998\n99990000\n[1, 3, 5]\n");
+    }
+
+    @Test
+    public void testParallelReduce() {
+        runAndExpect("parallelReduce", RANGE + """
+                print parallelReduce(a, (acc, x) => acc + x, 0);
+                print parallelReduce([], (acc, x) => acc + x, 42);
+                """, "49995000\n42\n");
+    }
+
+    @Test
+    public void testParallelReduceLikeReduce() {
+        runAndExpect("parallelReduce like reduce", RANGE + """
+                print parallelReduce([1, 2, 3], (n, x) => n + 1, 0);
+                print parallelReduce(a, (acc, x) => acc + x, 10);
+                var strings = parallelMap(a, (x) => "" + (x % 10));
+                var joined = (s, x) => s + x;
+                print parallelReduce(strings, joined, "<") == reduce(strings, joined, "<");
+                """, "3\n49995010\ntrue\n");
+    }
+
+    @Test
+    public void testParallelForEach() {
+        runAndExpect("parallelForEach", RANGE + """
+                var b = Int64Array(10000);
+                fun square(x, i) {
+                    b[i] = x * x;
+                }
+                parallelForEach(a, square);
+                print b[100];
+                print b[9999];
+                """, "10000\n99980001\n");
+    }
+
+    @Test
+    public void testDifferentCallbacksAtOneSite() {
+        runAndExpect("different callbacks", RANGE + """
+                fun sumOf(f) {
+                    return parallelReduce(parallelMap(a, f), (acc, x) => acc + x, 0);
+                }
+                print sumOf((x) => x);
+                print sumOf((x) => 2 * x);
+                print sumOf((x) => parallelReduce([x, x, x], (acc, y) => acc + y, 0));
+                """, "49995000\n99990000\n149985000\n");
+    }
+
+    @Test
+    public void testWithoutThreadCreation() {
+        context.close();
+        context = Context.newBuilder().build();
+        runAndExpect("sequential fallback", RANGE + """
+                print parallelReduce(parallelMap(a, (x) => x * 2), (acc, x) => acc + x, 0);
+                """, "99990000\n");
+    }
+
+    @Test
+    public void testErrorInCallback() {
+        runAndExpectError("error in callback", RANGE + """
+                parallelMap(a, (x) => x + nil);
+                """, "Unsupported types for addition");
+    }
+}
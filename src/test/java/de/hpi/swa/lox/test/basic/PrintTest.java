@@ -41,6 +41,9 @@
  */
 package de.hpi.swa.lox.test.basic;
 
+import static org.junit.Assert.assertEquals;
+
+import org.graalvm.polyglot.Value;
 import org.junit.Test;
 
 import de.hpi.swa.lox.test.AbstractLoxTest;
@@ -66,4 +69,55 @@ public class PrintTest extends AbstractLoxTest {
         runAndExpect("printTestOutputDebug", "print 2 * (3 + 4);", "14\n");
     }
 
+    @Test
+    public void printNumbers() {
+        runAndExpect("printNumbers", "print 0; print -42; print -9223372036854775807 - 1; print 1.5;",
+                "0\n-42\n-9223372036854775808\n1.5\n");
+    }
+
+    @Test
+    public void printDoubles() {
+        String[] literals = { "0.1", "0.3", "100.25", "1234567.5", "12345678.5", "0.001", "0.0005", "123456789012345678.0",
+                "0.000001234", "3.141592653589793", "0.1 + 0.2", "-1.5", "1.0 / 3" };
+        double[] values = { 0.1, 0.3, 100.25, 1234567.5, 12345678.5, 0.001, 0.0005, 123456789012345678.0, 0.000001234,
+                3.141592653589793, 0.1 + 0.2, -1.5, 1.0 / 3 };
+        StringBuilder program = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < literals.length; i++) {
+            program.append("print ").append(literals[i]).append("; print \"x\" + (").append(literals[i]).append(");\n");
+            expected.append(values[i]).append("\nx").append(values[i]).append("\n");
+        }
+        runAndExpect("printDoubles", program.toString(), expected.toString());
+    }
+
+    @Test
+    public void printBeforeError() {
+        runAndExpect("printBeforeError", "print \"before\"; print 1 + nil;", "before\n");
+    }
+
+    @Test
+    public void printLargeOutput() {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            expected.append("line ").append(i).append("\n");
+        }
+        runAndExpect("printLargeOutput", "for (var i = 0; i < 5000; i = i + 1) print \"line \" + i;",
+                expected.toString());
+    }
+
+    @Test
+    public void printInHostCall() {
+        Value greet = context.eval("lox", """
+                fun greet(name, times) {
+                    for (var i = 0; i < times; i = i + 1) print "hi " + name;
+                    return times * 2;
+                }
+                return greet;
+                """);
+        outContent.reset();
+        Value result = greet.execute("host", 2);
+        assertEquals("printInHostCall", "hi host\nhi host\n", normalize(outContent.toString()));
+        assertEquals(4, result.asLong());
+    }
+
 }
@@ -0,0 +1,64 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class RegexTest extends AbstractLoxTest {
+    @Test
+    public void testTest() {
+        runAndExpect("test", """
+                print test("hello world", "wor");
+                print test("hello world", "^world");
+                print test("äbc", "b.$");
+                """, "true\nfalse\ntrue\n");
+    }
+
+    @Test
+    public void testMatch() {
+        runAndExpect("match", """
+                var m = match("GET /index.html 200", "([A-Z]+) (\\S+) ([0-9]+)");
+                print m;
+                print match("abc", "x");
+                print match("ab", "a(x)?b");
+                print match("Grüße, Welt", "ü(.)e");
+                """, "[\"GET /index.html 200\", \"GET\", \"/index.html\", \"200\"]\nnil\n[\"ab\", nil]\n[\"üße\", \"ß\"]\n");
+    }
+
+    @Test
+    public void testMatchAll() {
+        runAndExpect("matchAll", """
+                print matchAll("a=1, b=22, c=333", "([a-z])=([0-9]+)");
+                print len(matchAll("abc", "[0-9]"));
+                """, "[[\"a=1\", \"a\", \"1\"], [\"b=22\", \"b\", \"22\"], [\"c=333\", \"c\", \"333\"]]\n0\n");
+    }
+
+    @Test
+    public void testReplace() {
+        runAndExpect("replace", """
+                print replace("2024-01-15", "([0-9]+)-([0-9]+)-([0-9]+)", "$3.$2.$1");
+                print replace("a  b   c", " +", " ");
+                print replace("äää", "ä", "a");
+                print replace("abc", "x", "y");
+                """, "15.01.2024\na b c\naaa\nabc\n");
+    }
+
+    @Test
+    public void testManyPatternsAtOneSite() {
+        runAndExpect("many patterns", """
+                var patterns = ["a", "b", "c", "d", "e"];
+                var count = 0;
+                for (var i = 0; i < 20; i = i + 1) {
+                    if (test("abcde", patterns[i % 5])) count = count + 1;
+                }
+                print count;
+                """, "20\n");
+    }
+
+    @Test
+    public void testErrors() {
+        runAndExpectError("invalid pattern", "test(\"abc\", \"(\");", "Invalid regular expression");
+        runAndExpectError("invalid replacement", "replace(\"abc\", \"b\", \"$2\");", "Invalid replacement");
+        runAndExpectError("not a string", "match(1, \"a\");", "Unsupported arguments for match");
+    }
+}
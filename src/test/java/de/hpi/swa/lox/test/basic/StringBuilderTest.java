@@ -0,0 +1,45 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class StringBuilderTest extends AbstractLoxTest {
+    @Test
+    public void testAppend() {
+        runAndExpect("append", """
+                var sb = StringBuilder();
+                append(sb, "x=");
+                append(append(sb, 42), ",");
+                append(sb, 2.5);
+                append(sb, true);
+                append(sb, nil);
+                append(sb, [1, "a"]);
+                print toString(sb);
+                print sb;
+                """, "x=42,2.5truenil[1, \"a\"]\nx=42,2.5truenil[1, \"a\"]\n");
+    }
+
+    @Test
+    public void testCsv() {
+        runAndExpect("csv", """
+                var sb = StringBuilder();
+                for (var row = 0; row < 3; row = row + 1) {
+                    for (var col = 0; col < 3; col = col + 1) {
+                        if (col > 0) append(sb, ",");
+                        append(sb, row * col);
+                    }
+                    append(sb, ";");
+                }
+                var s = toString(sb);
+                print s;
+                print s + "!";
+                """, "0,0,0;0,1,2;0,2,4;\n0,0,0;0,1,2;0,2,4;!\n");
+    }
+
+    @Test
+    public void testErrors() {
+        runAndExpectError("not a builder", "append(1, 2);", "Unsupported arguments for append");
+        runAndExpectError("toString", "toString(1);", "Unsupported arguments for toString");
+    }
+}
@@ -0,0 +1,126 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class StringBuiltInsTest extends AbstractLoxTest {
+    @Test
+    public void testLen() {
+        runAndExpect("len", "print len(\"hello\"); print len(\"\"); print len(\"äöü\"); print len([1, 2, 3]);",
+                "5\n0\n3\n3\n");
+        runAndExpect("len of typed arrays", """
+                print len(view([1, 2, 3, 4], 1));
+                print len(Int64Array(5));
+                print len(Float64Array(6));
+                print len(ByteArray(7));
+                print len(Buffer(8));
+                """, "3\n5\n6\n7\n8\n");
+    }
+
+    @Test
+    public void testCharAt() {
+        runAndExpect("charAt", "print charAt(\"hello\", 1); print charAt(\"aäb\", 1);", "e\nä\n");
+        runAndExpectError("charAt out of bounds", "charAt(\"abc\", 3);", "Unsupported arguments for charAt");
+    }
+
+    @Test
+    public void testSubstring() {
+        runAndExpect("substring", """
+                var s = "hello world";
+                print substring(s, 6);
+                print substring(s, 0, 5);
+                print substring(s, 3, 3) == "";
+                print substring("aäbc", 1, 3);
+                """, "world\nhello\ntrue\näb\n");
+        runAndExpectError("substring out of bounds", "substring(\"abc\", 2, 5);", "Unsupported arguments for substring");
+    }
+
+    @Test
+    public void testIndexOf() {
+        runAndExpect("indexOf", """
+                print indexOf("hello world", "o");
+                print indexOf("hello world", "world");
+                print indexOf("hello", "x");
+                print indexOf("ab", "abc");
+                print indexOf("äbc", "c");
+                print indexOf([1, 2, 3], 2);
+                print indexOf("", "a");
+                print indexOf("äb", "äbä");
+                """, "4\n6\n-1\n-1\n2\n1\n-1\n-1\n");
+    }
+
+    @Test
+    public void testSplitAndJoin() {
+        runAndExpect("split", """
+                print split("a,b,,c", ",");
+                print split("a::b", "::");
+                print split("abc", "");
+                print split("", ",");
+                print split(",", ",");
+                print join(split("1 2 3", " "), "+");
+                print join([1, 2.5, nil, true], ", ");
+                print join([], "-") == "";
+                """, "[\"a\", \"b\", \"\", \"c\"]\n[\"a\", \"b\"]\n[\"a\", \"b\", \"c\"]\n[\"\"]\n[\"\", \"\"]\n1+2+3\n1, 2.5, nil, true\ntrue\n");
+    }
+
+    @Test
+    public void testSplitNonAscii() {
+        runAndExpect("split non-ASCII", """
+                print split("äö€😀", "");
+                print split("ä→b→→😀", "→");
+                print split("😀ä😀", "ä");
+                var s = "";
+                for (var i = 0; i < 20000; i = i + 1) s = s + "ä";
+                print len(split(s, ""));
+                """, "[\"ä\", \"ö\", \"€\", \"😀\"]\n[\"ä\", \"b\", \"\", \"😀\"]\n[\"😀\", \"😀\"]\n20000\n");
+    }
+
+    @Test
+    public void testStartsWithAndTrim() {
+        runAndExpect("startsWith", """
+                print startsWith("hello", "he");
+                print startsWith("hello", "lo");
+                print startsWith("he", "hello");
+                print startsWith("hello", "");
+                print "[" + trim("  padded\t ") + "]";
+                print "[" + trim("   ") + "]";
+                print "[" + trim("none") + "]";
+                """, "true\nfalse\nfalse\ntrue\n[padded]\n[]\n[none]\n");
+    }
+
+    @Test
+    public void testChangeCase() {
+        runAndExpect("changeCase", """
+                print toUpper("Hello, World!");
+                print toLower("Hello, World!");
+                print toUpper("straße");
+                print toLower("ÄÖÜ");
+                """, "HELLO, WORLD!\nhello, world!\nSTRASSE\näöü\n");
+    }
+
+    @Test
+    public void testComparison() {
+        runAndExpect("comparison", """
+                print "apple" < "banana";
+                print "b" > "abc";
+                print "abc" <= "abc";
+                print "ab" >= "abc";
+                print "Z" < "a";
+                """, "true\ntrue\ntrue\nfalse\ntrue\n");
+    }
+
+    @Test
+    public void testWordCount() {
+        runAndExpect("wordCount", """
+                var text = "the quick brown fox jumps over the lazy dog the end";
+                var counts = Map();
+                for (var word of split(text, " ")) {
+                    if (has(counts, word)) counts[word] = counts[word] + 1;
+                    else counts[word] = 1;
+                }
+                print counts["the"];
+                print len(counts);
+                """, "3\n9\n");
+    }
+}
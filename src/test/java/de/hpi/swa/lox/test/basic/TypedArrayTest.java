@@ -0,0 +1,77 @@
+package de.hpi.swa.lox.test.basic;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class TypedArrayTest extends AbstractLoxTest {
+    @Test
+    public void testInt64Array() {
+        runAndExpect("Int64Array", """
+                var a = Int64Array(4);
+                print a;
+                for (var i = 0; i < 4; i = i + 1) {
+                    a[i] = i * i;
+                }
+                print a;
+                var sum = 0;
+                for (var x of a) {
+                    sum = sum + x;
+                }
+                print sum;
+                """, "[0, 0, 0, 0]\n[0, 1, 4, 9]\n14\n");
+    }
+
+    @Test
+    public void testFloat64Array() {
+        runAndExpect("Float64Array", """
+                var a = Float64Array(3);
+                a[0] = 1.5;
+                a[1] = 2;
+                print a;
+                print a[1] + a[0];
+                """, "[1.5, 2.0, 0.0]\n3.5\n");
+    }
+
+    @Test
+    public void testByteArray() {
+        runAndExpect("ByteArray", """
+                var a = ByteArray(3);
+                a[0] = 255;
+                a[1] = 256;
+                a[2] = -1;
+                print a;
+                """, "[255, 0, 255]\n");
+    }
+
+    @Test
+    public void testMatrixMultiply() {
+        runAndExpect("matrix multiply", """
+                var n = 3;
+                var a = Float64Array(n * n);
+                var b = Float64Array(n * n);
+                var c = Float64Array(n * n);
+                for (var i = 0; i < n * n; i = i + 1) {
+                    a[i] = i;
+                    b[i] = n * n - i;
+                }
+                for (var i = 0; i < n; i = i + 1) {
+                    for (var j = 0; j < n; j = j + 1) {
+                        var s = 0.0;
+                        for (var k = 0; k < n; k = k + 1) {
+                            s = s + a[i * n + k] * b[k * n + j];
+                        }
+                        c[i * n + j] = s;
+                    }
+                }
+                print c;
+                """, "[12.0, 9.0, 6.0, 66.0, 54.0, 42.0, 120.0, 99.0, 78.0]\n");
+    }
+
+    @Test
+    public void testErrors() {
+        runAndExpectError("out of bounds", "var a = Int64Array(2); print a[2];", "Cannot read index 2");
+        runAndExpectError("wrong type", "var a = Int64Array(2); a[0] = 1.5;", "Cannot write index 0");
+        runAndExpectError("negative length", "Int64Array(-1);", "Unsupported arguments for Int64Array");
+    }
+}
@@ -21,4 +21,62 @@ public class ArrayLiteralsTest extends AbstractLoxTest {
         runAndExpect("set element", "var a = [1, \"hello\"]; a[0] = 42; print a;", "[42, \"hello\"]\n");
     }
 
+    @Test
+    public void testStorageTransitions() {
+        runAndExpect("long array", "var a = [1, 2]; a[2] = 3; print a;", "[1, 2, 3]\n");
+        runAndExpect("long to mixed", "a[1] = 2.5; print a;", "[1, 2.5, 3]\n");
+        runAndExpect("double array", "var d = [1.5, 2.5]; d[0] = d[0] + d[1]; print d;", "[4.0, 2.5]\n");
+        runAndExpect("boolean array", "var b = []; b[0] = true; b[1] = false; print b;", "[true, false]\n");
+        runAndExpect("array with hole", "var h = [1]; h[3] = 4; print h;", "[1, nil, nil, 4]\n");
+    }
+
+    @Test
+    public void testNumericArrayInLoop() {
+        runAndExpect("sieve", """
+                var sieve = [];
+                for (var i = 0; i < 50; i = i + 1) { sieve[i] = true; }
+                var count = 0;
+                for (var i = 2; i < 50; i = i + 1) {
+                    if (sieve[i]) {
+                        count = count + 1;
+                        for (var j = i * i; j < 50; j = j + i) { sieve[j] = false; }
+                    }
+                }
+                print count;
+                """, "15\n");
+    }
+
+    @Test
+    public void testSparseArray() {
+        runAndExpect("far write", """
+                var a = [1, 2];
+                a[1000000] = 3;
+                var count = 0;
+                for (var e of a) { if (e != nil) count = count + 1; }
+                print a[1000000]; print a[500]; print count;
+                """, "3\nnil\n3\n");
+        runAndExpect("back to dense", """
+                var s = [];
+                s[5000] = 1;
+                for (var i = 0; i < 5000; i = i + 1) { s[i] = i; }
+                print s[4999] + s[5000];
+                """, "5000\n");
+    }
+
+    @Test
+    public void testInvalidIndex() {
+        runAndExpectError("negative index", "var a = [1]; a[-1] = 2;", "Cannot write index -1");
+    }
+
+    @Test
+    public void testConstantLiteralsAreCopiedOnWrite() {
+        runAndExpect("copy on write", """
+                fun table() { return [1, -2, 3]; }
+                var a = table();
+                var b = table();
+                a[0] = 10;
+                b[3] = "x";
+                print a; print b; print table();
+                """, "[10, -2, 3]\n[1, -2, 3, \"x\"]\n[1, -2, 3]\n");
+    }
 }
@@ -0,0 +1,57 @@
+package de.hpi.swa.lox.test.challenge;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class ArrayViewTest extends AbstractLoxTest {
+    @Test
+    public void testView() {
+        runAndExpect("view", """
+                var a = [1, 2, 3, 4, 5];
+                var v = view(a, 1, 4);
+                print v;
+                print v[0];
+                v[1] = 30;
+                print a;
+                var w = view(v, 1);
+                print w;
+                for (var x of w) {
+                    print x;
+                }
+                print view(a, 3, 1);
+                """, "[2, 3, 4]\n2\n[1, 2, 30, 4, 5]\n[30, 4]\n30\n4\n[]\n");
+    }
+
+    @Test
+    public void testBinarySearchOverHalves() {
+        runAndExpect("binary search", """
+                fun contains(v, x) {
+                    var mid = 0;
+                    var n = 0;
+                    for (var e of v) { n = n + 1; }
+                    if (n == 0) return false;
+                    mid = (n - n % 2) / 2;
+                    if (v[mid] == x) return true;
+                    if (v[mid] < x) return contains(view(v, mid + 1), x);
+                    return contains(view(v, 0, mid), x);
+                }
+                var a = [1, 3, 5, 7, 9, 11, 13];
+                print contains(view(a, 0), 9);
+                print contains(view(a, 0), 4);
+                """, "true\nfalse\n");
+    }
+
+    @Test
+    public void testMixedElementsAndErrors() {
+        runAndExpect("mixed", """
+                var a = [1, "two", 3.0];
+                var v = view(a, 1);
+                v[0] = nil;
+                print a;
+                print v[5];
+                """, "[1, nil, 3.0]\nnil\n");
+        runAndExpectError("write out of bounds", "var v = view([1, 2], 0, 1); v[1] = 3;", "Cannot write index 1");
+        runAndExpectError("not an array", "view(1, 0);", "Unsupported arguments for view");
+    }
+}
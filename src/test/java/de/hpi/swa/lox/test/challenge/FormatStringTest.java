@@ -10,29 +10,58 @@ public class FormatStringTest extends AbstractLoxTest {
         runAndExpect("printTestOutput", "print \"hello ${3 + 4}\";", "hello 7\n");
     }
 
-    // @Test
-    // public void testSimpleFormatString() {
-    //     runAndExpect("simpleFormatString", "print \"hello ${3 + 4}\";", "hello 7\n");
-    // }
-
-    // @Test
-    // public void testMultipleFormatString() {
-    //     runAndExpect("multipleFormatString", "print \"sum: ${2 + 3}, product: ${4 * 5}\";", "sum: 5, product: 20\n");
-    // }
-
-    // @Test
-    // public void testNestedFormatString() {
-    //     runAndExpect("nestedFormatString", "print \"sum: ${2 + 3}, product: ${4 * 5}\";", "sum: 5, product: 20\n");
-    // }
-
-    // @Test
-    // public void testFormatStringWithVariables() {
-    //     runAndExpect("formatStringWithVariables", "var x = 10; print \"x is ${x}\";", "x is 10\n");
-    // }
-
-    // @Test
-    // public void testFormatStringWithFunctionCalls() {
-    //     runAndExpect("formatStringWithFunctionCalls", "fun add(a, b) { return a + b; } print \"result: ${add(2, 3)}\";",
-    //             "result: 5\n");
-    // }
+    @Test
+    public void testSimpleFormatString() {
+        runAndExpect("simpleFormatString", "print \"hello ${3 + 4}\";", "hello 7\n");
+    }
+
+    @Test
+    public void testMultipleFormatString() {
+        runAndExpect("multipleFormatString", "print \"sum: ${2 + 3}, product: ${4 * 5}\";", "sum: 5, product: 20\n");
+    }
+
+    @Test
+    public void testNestedFormatString() {
+        runAndExpect("nestedFormatString", "var x = 2; print \"outer ${\"inner ${x * 3}!\"} done\";",
+                "outer inner 6! done\n");
+    }
+
+    @Test
+    public void testFormatStringWithVariables() {
+        runAndExpect("formatStringWithVariables", "var x = 10; print \"x is ${x}\";", "x is 10\n");
+    }
+
+    @Test
+    public void testFormatStringWithFunctionCalls() {
+        runAndExpect("formatStringWithFunctionCalls", "fun add(a, b) { return a + b; } print \"result: ${add(2, 3)}\";",
+                "result: 5\n");
+    }
+
+    @Test
+    public void testFormatStringValues() {
+        runAndExpect("formatStringValues", "print \"${1.5} ${true} ${nil} ${[1, \"a\"]} ${\"s\"}\";",
+                "1.5 true nil [1, \"a\"] s\n");
+    }
+
+    @Test
+    public void testFormatStringWithBraces() {
+        runAndExpect("formatStringWithBraces", "var o = {a: 1}; print \"a=${{b: 2}.b + o.a}\";", "a=3\n");
+        runAndExpect("formatStringAfterBlock", "{ var x = 1; } print \"} ${1} {\";", "} 1 {\n");
+    }
+
+    @Test
+    public void testDollarWithoutBrace() {
+        runAndExpect("dollarWithoutBrace", "print \"costs $5 and ${5}$\";", "costs $5 and 5$\n");
+    }
+
+    @Test
+    public void testEmptyStrings() {
+        runAndExpect("emptyString", "print \"\"; print \"${1}${2}\"; print \"\" + \"a\";", "\n12\na\n");
+    }
+
+    @Test
+    public void testFormatStringInLoop() {
+        runAndExpect("formatStringInLoop", "for (var i = 0; i < 3; i = i + 1) print \"i=${i} half=${i / 2}\";",
+                "i=0 half=0\ni=1 half=0.5\ni=2 half=1\n");
+    }
 }
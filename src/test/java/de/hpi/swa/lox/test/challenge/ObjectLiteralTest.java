@@ -0,0 +1,56 @@
+package de.hpi.swa.lox.test.challenge;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class ObjectLiteralTest extends AbstractLoxTest {
+    @Test
+    public void testObjectLiteral() {
+        runAndExpect("object literal", """
+                var p = {x: 1, y: 2};
+                print p;
+                print p.x + p.y;
+                p.z = 3;
+                print p.z;
+                print {}.x;
+                """, "Object\n3\n3\nnil\n");
+    }
+
+    @Test
+    public void testNestedAndComputed() {
+        runAndExpect("nested and computed", """
+                fun point(x, y) {
+                    return {x: x, y: y, norm: {squared: x * x + y * y}};
+                }
+                var points = [];
+                for (var i = 0; i < 50; i = i + 1) {
+                    points[i] = point(i, i + 1);
+                }
+                print points[3].norm.squared;
+                print points[49].y;
+                """, "25\n50\n");
+    }
+
+    @Test
+    public void testBlocksStillParse() {
+        runAndExpect("blocks still parse", """
+                { var a = 1; print a; }
+                {}
+                var f = () => { return {a: 1}; };
+                print f().a;
+                """, "1\n1\n");
+    }
+
+    @Test
+    public void testSameKeyOrderSharesCallSites() {
+        runAndExpect("same key order", """
+                fun sum(p) { return p.x + p.y; }
+                var total = 0;
+                for (var i = 0; i < 100; i = i + 1) {
+                    total = total + sum({x: i, y: 1}) + sum({x: 1, y: i});
+                }
+                print total;
+                """, "10100\n");
+    }
+}
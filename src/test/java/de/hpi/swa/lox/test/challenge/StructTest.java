@@ -0,0 +1,56 @@
+package de.hpi.swa.lox.test.challenge;
+
+import org.junit.Test;
+
+import de.hpi.swa.lox.test.AbstractLoxTest;
+
+public class StructTest extends AbstractLoxTest {
+    @Test
+    public void testDeclareAndCreate() {
+        runAndExpect("declare and create", """
+                struct Point { x, y }
+                print Point;
+                var p = Point(1, 2);
+                print p;
+                print p.x + p.y;
+                print Point(1);
+                """, "Struct Point\nPoint(x: 1, y: 2)\n3\nPoint(x: 1, y: nil)\n");
+    }
+
+    @Test
+    public void testWriteFields() {
+        runAndExpect("write fields", """
+                struct Particle { x, v }
+                var particles = [];
+                for (var i = 0; i < 100; i = i + 1) {
+                    particles[i] = Particle(0.0, i);
+                }
+                for (var step = 0; step < 10; step = step + 1) {
+                    for (var p of particles) {
+                        p.x = p.x + p.v;
+                    }
+                }
+                print particles[99].x;
+                """, "990.0\n");
+    }
+
+    @Test
+    public void testSeveralStructs() {
+        runAndExpect("several structs", """
+                struct A { a, shared }
+                struct B { shared, b }
+                struct Empty {}
+                fun get(s) { return s.shared; }
+                print get(A(1, "in a"));
+                print get(B("in b", 2));
+                print Empty();
+                """, "in a\nin b\nEmpty()\n");
+    }
+
+    @Test
+    public void testUndefinedField() {
+        runAndExpectError("read undefined field", "struct P { x } print P(1).y;", "Undefined field 'y' for struct P");
+        runAndExpectError("write undefined field", "struct P { x } var p = P(1); p.y = 2;",
+                "Undefined field 'y' for struct P");
+    }
+}